@@ -0,0 +1,122 @@
+package ru.skypro.homework.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+
+/**
+ * Шина инвалидации кэшей между экземплярами приложения.
+ * <p>
+ * Сервисы сообщают об измененных объявлениях и пользователях; сообщение отправляется
+ * через {@link InvalidationTransport} после фиксации текущей транзакции (или сразу, если транзакции нет).
+ * Полученные от других экземпляров сообщения публикуются в контексте приложения
+ * как {@link CacheInvalidationEvent}. Собственные сообщения пропускаются: локальные кэши
+ * очищаются самими сервисами.
+ * <p>
+ * Сообщение — строки, разделенные {@code \n}: идентификатор экземпляра, тип события и ключи.
+ * Ключи разбиваются на несколько сообщений, чтобы размер каждого не превышал {@value #MAX_PAYLOAD_BYTES} байт
+ * (ограничение {@code NOTIFY} — 8000 байт).
+ */
+@Slf4j
+@Component
+public class CacheInvalidationBus implements InvalidationTransport.Listener {
+
+    static final int MAX_PAYLOAD_BYTES = 7900;
+    private static final String SEPARATOR = "\n";
+
+    private final InvalidationTransport transport;
+    private final ApplicationEventPublisher eventPublisher;
+    private final String nodeId = UUID.randomUUID().toString();
+
+    public CacheInvalidationBus(InvalidationTransport transport, ApplicationEventPublisher eventPublisher) {
+        this.transport = transport;
+        this.eventPublisher = eventPublisher;
+        transport.subscribe(this);
+    }
+
+    public void adsChanged(Integer id) {
+        publish(CacheInvalidationEvent.Type.ADS, List.of(id.toString()));
+    }
+
+    public void adsChanged(Collection<Integer> ids) {
+        publish(CacheInvalidationEvent.Type.ADS, ids.stream().map(String::valueOf).collect(Collectors.toList()));
+    }
+
+    public void userChanged(String email) {
+        publish(CacheInvalidationEvent.Type.USER, List.of(email.toLowerCase()));
+    }
+
+    private void publish(CacheInvalidationEvent.Type type, List<String> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        List<String> payloads = encode(type, keys);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    payloads.forEach(transport::send);
+                }
+            });
+        } else {
+            payloads.forEach(transport::send);
+        }
+    }
+
+    List<String> encode(CacheInvalidationEvent.Type type, List<String> keys) {
+        String header = nodeId + SEPARATOR + type;
+        int headerBytes = header.getBytes(StandardCharsets.UTF_8).length;
+        List<String> payloads = new ArrayList<>();
+        StringBuilder payload = new StringBuilder(header);
+        int payloadBytes = headerBytes;
+        for (String key : keys) {
+            int keyBytes = 1 + key.getBytes(StandardCharsets.UTF_8).length;
+            if (payloadBytes + keyBytes > MAX_PAYLOAD_BYTES && payloadBytes > headerBytes) {
+                payloads.add(payload.toString());
+                payload = new StringBuilder(header);
+                payloadBytes = headerBytes;
+            }
+            payload.append(SEPARATOR).append(key);
+            payloadBytes += keyBytes;
+        }
+        payloads.add(payload.toString());
+        return payloads;
+    }
+
+    @Override
+    public void onMessage(String payload) {
+        String[] lines = payload.split(SEPARATOR);
+        if (lines.length < 2) {
+            log.warn("Ignoring malformed cache invalidation: {}", payload);
+            return;
+        }
+        if (nodeId.equals(lines[0])) {
+            return;
+        }
+        CacheInvalidationEvent.Type type;
+        try {
+            type = CacheInvalidationEvent.Type.valueOf(lines[1]);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring cache invalidation of unknown type: {}", payload);
+            return;
+        }
+        List<String> keys = Arrays.asList(lines).subList(2, lines.length);
+        log.trace("Received {} invalidation for {} keys", type, keys.size());
+        eventPublisher.publishEvent(new CacheInvalidationEvent(type, List.copyOf(keys)));
+    }
+
+    @Override
+    public void onReset() {
+        eventPublisher.publishEvent(new CacheInvalidationEvent(CacheInvalidationEvent.Type.ALL, List.of()));
+    }
+}
@@ -0,0 +1,32 @@
+package ru.skypro.homework.cache;
+
+import lombok.Value;
+
+import java.util.List;
+
+/**
+ * Событие об изменении сущностей на другом экземпляре приложения.
+ * Публикуется {@link CacheInvalidationBus} в контексте приложения, кэши обрабатывают его
+ * методами с аннотацией {@link org.springframework.context.event.EventListener}.
+ */
+@Value
+public class CacheInvalidationEvent {
+
+    public enum Type {
+        /**
+         * Изменены объявления, ключи — идентификаторы объявлений.
+         */
+        ADS,
+        /**
+         * Изменены пользователи, ключи — адреса электронной почты.
+         */
+        USER,
+        /**
+         * Часть событий могла быть пропущена, все записи кэшей должны быть удалены.
+         */
+        ALL
+    }
+
+    Type type;
+    List<String> keys;
+}
@@ -0,0 +1,106 @@
+package ru.skypro.homework.cache;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.skypro.homework.dto.FullAds;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Function;
+
+/**
+ * Кэш полной информации об объявлениях в виде готового JSON.
+ * <p>
+ * Записи хранятся как массивы байт, сериализованные из {@link FullAds}, поэтому при попадании
+ * в кэш не выполняются ни запрос к базе данных, ни преобразование, ни сериализация.
+ * Размер кэша ограничен суммарным объемом JSON ({@code ads.full-ads-cache.max-bytes}),
+ * вытеснение выполняется по алгоритму W-TinyLFU. Статистика публикуется в метриках кэша {@code fullAds}.
+ * <p>
+ * Записи удаляются при изменении объявления на этом и, через {@link CacheInvalidationBus}, на других экземплярах.
+ * Срок хранения {@code ads.full-ads-cache.ttl} ограничивает время, в течение которого запись остается устаревшей,
+ * если сообщение об изменении было потеряно.
+ */
+@Component
+public class FullAdsCache {
+
+    private final ObjectMapper objectMapper;
+    private final Cache<Integer, byte[]> cache;
+
+    public FullAdsCache(ObjectMapper objectMapper,
+                        MeterRegistry meterRegistry,
+                        @Value("${ads.full-ads-cache.max-bytes:16777216}") long maxBytes,
+                        @Value("${ads.full-ads-cache.ttl:PT10M}") Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<Integer, byte[]>weigher((id, json) -> json.length)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "fullAds");
+    }
+
+    /**
+     * Возвращает JSON объявления, загружая и сериализуя его при отсутствии в кэше.
+     * Исключения загрузчика передаются вызывающему, такие результаты не кэшируются.
+     *
+     * @param id     Идентификатор объявления.
+     * @param loader Загрузчик полной информации об объявлении.
+     * @return JSON объекта {@link FullAds}.
+     */
+    public byte[] get(Integer id, Function<Integer, FullAds> loader) {
+        return cache.get(id, key -> {
+            try {
+                return objectMapper.writeValueAsBytes(loader.apply(key));
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Удаляет объявление из кэша. Если вызвано внутри транзакции, запись удаляется
+     * повторно после фиксации, чтобы не осталось значения, загруженного до фиксации изменений.
+     */
+    public void invalidate(Integer id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+
+    public void invalidateAll(Collection<Integer> ids) {
+        ids.forEach(this::invalidate);
+    }
+
+    /**
+     * Удаляет объявления, измененные на другом экземпляре приложения.
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        switch (event.getType()) {
+            case ADS:
+                event.getKeys().forEach(id -> cache.invalidate(Integer.valueOf(id)));
+                break;
+            case ALL:
+                cache.invalidateAll();
+                break;
+            default:
+        }
+    }
+}
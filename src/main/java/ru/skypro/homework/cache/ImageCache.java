@@ -0,0 +1,141 @@
+package ru.skypro.homework.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэш содержимого часто запрашиваемых изображений вне кучи Java.
+ * <p>
+ * Содержимое файла читается через {@link FileChannel} сразу в прямой {@link ByteBuffer} и отдается
+ * как {@link Resource} без копирования, поэтому попадание в кэш не обращается к файловой системе
+ * и не создает в куче массив размером с изображение. Объем кэша ограничен суммой размеров изображений
+ * ({@code image.cache.max-bytes}), вытеснение выполняется по алгоритму W-TinyLFU. Изображение попадает
+ * в кэш, только когда его запросили {@code image.cache.admission-threshold} раз за {@code image.cache.ttl},
+ * а изображения больше {@code image.cache.max-entry-bytes} не кэшируются, чтобы редкие и большие файлы
+ * не вытесняли популярные. Записи удаляются при удалении файла ({@link #invalidate(String)}) и в любом
+ * случае через {@code image.cache.ttl}, так что на других экземплярах приложения удаленный файл
+ * отдается не дольше этого срока. Память буфера освобождается, когда запись вытеснена и последний
+ * ответ с ней отправлен. Статистика публикуется в метриках кэша {@code images}.
+ * Отключается свойством {@code image.cache.enabled=false}.
+ */
+@Slf4j
+@Component
+public class ImageCache {
+
+    private final boolean enabled;
+    private final long maxEntryBytes;
+    private final int admissionThreshold;
+    private final Cache<String, CachedImageResource> cache;
+    private final Cache<String, AtomicInteger> requests;
+    /**
+     * Количество вызовов {@link #invalidate(String)}. Файл, прочитанный в {@link #load(String, Path)},
+     * кладется в кэш, только если за время чтения не было ни одного удаления.
+     * Общий счетчик вместо счетчика на каждое имя не требует памяти на удаленные имена; удаление
+     * другого изображения во время чтения лишь откладывает кэширование до следующего запроса.
+     */
+    private final AtomicLong invalidations = new AtomicLong();
+
+    public ImageCache(MeterRegistry meterRegistry,
+                      @Value("${image.cache.enabled:true}") boolean enabled,
+                      @Value("${image.cache.max-bytes:67108864}") long maxBytes,
+                      @Value("${image.cache.max-entry-bytes:1048576}") long maxEntryBytes,
+                      @Value("${image.cache.admission-threshold:2}") int admissionThreshold,
+                      @Value("${image.cache.ttl:PT10M}") Duration ttl) {
+        this.enabled = enabled;
+        this.maxEntryBytes = maxEntryBytes;
+        this.admissionThreshold = admissionThreshold;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .<String, CachedImageResource>weigher((name, image) -> (int) image.contentLength())
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.requests = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .expireAfterWrite(ttl)
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "images");
+    }
+
+    /**
+     * Возвращает изображение из кэша.
+     *
+     * @param name Имя файла изображения.
+     */
+    public Optional<Resource> get(String name) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        return Optional.ofNullable(cache.getIfPresent(name));
+    }
+
+    /**
+     * Возвращает ресурс для файла, не найденного в кэше, и учитывает запрос. Если файл запрошен
+     * достаточно часто и не слишком велик, он читается в кэш и возвращается из кэша.
+     *
+     * @param name Имя файла изображения, под которым его будут искать в {@link #get(String)}.
+     * @param file Файл изображения.
+     */
+    public Resource load(String name, Path file) {
+        if (!enabled || requests.get(name, key -> new AtomicInteger()).incrementAndGet() < admissionThreshold) {
+            return new FileSystemResource(file);
+        }
+        long generation = invalidations.get();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > maxEntryBytes) {
+                return new FileSystemResource(file);
+            }
+            ByteBuffer content = ByteBuffer.allocateDirect((int) size);
+            while (content.hasRemaining()) {
+                if (channel.read(content) < 0) {
+                    break;
+                }
+            }
+            content.flip();
+            CachedImageResource image = new CachedImageResource(content, file.getFileName().toString(),
+                    Files.getLastModifiedTime(file).toMillis());
+            CachedImageResource cached = cache.asMap().compute(name,
+                    (key, current) -> invalidations.get() == generation ? image : current);
+            if (cached != image) {
+                log.trace("Image {} was not cached: invalidated while reading", name);
+                return image;
+            }
+            requests.invalidate(name);
+            log.trace("Cached image {} of {} bytes", name, size);
+            return image;
+        } catch (IOException e) {
+            log.trace("Failed to cache image {}: {}", name, e.getMessage());
+            return new FileSystemResource(file);
+        }
+    }
+
+    /**
+     * Удаляет изображение из кэша. Счетчик удалений увеличивается до удаления записи, а {@link #load(String, Path)}
+     * проверяет его атомарно с добавлением записи, поэтому файл, прочитанный одновременно с удалением,
+     * либо не попадет в кэш, либо будет удален из него этим вызовом.
+     */
+    public void invalidate(String name) {
+        invalidations.incrementAndGet();
+        cache.invalidate(name);
+        requests.invalidate(name);
+    }
+}
@@ -0,0 +1,25 @@
+package ru.skypro.homework.cache;
+
+/**
+ * Канал доставки сообщений об инвалидации между экземплярами приложения.
+ */
+public interface InvalidationTransport {
+
+    /**
+     * Отправляет сообщение всем подписчикам, в том числе подписчикам этого экземпляра.
+     * Ошибки отправки не выбрасываются, а записываются в журнал.
+     */
+    void send(String payload);
+
+    void subscribe(Listener listener);
+
+    interface Listener {
+
+        void onMessage(String payload);
+
+        /**
+         * Вызывается после (пере)подключения к каналу, когда сообщения могли быть пропущены.
+         */
+        void onReset();
+    }
+}
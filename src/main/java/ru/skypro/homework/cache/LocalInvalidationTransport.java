@@ -0,0 +1,29 @@
+package ru.skypro.homework.cache;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Канал инвалидации внутри одного процесса. Используется при запуске единственного экземпляра
+ * ({@code cache.invalidation.transport=local}) и в тестах, где несколько {@link CacheInvalidationBus}
+ * на общем канале играют роль разных экземпляров приложения.
+ */
+@Component
+@ConditionalOnProperty(value = "cache.invalidation.transport", havingValue = "local", matchIfMissing = true)
+public class LocalInvalidationTransport implements InvalidationTransport {
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    @Override
+    public void send(String payload) {
+        listeners.forEach(listener -> listener.onMessage(payload));
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        listeners.add(listener);
+    }
+}
@@ -0,0 +1,45 @@
+package ru.skypro.homework.cache;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.Cache;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import ru.skypro.homework.config.HibernateCacheConfig;
+import ru.skypro.homework.entity.Ads;
+import ru.skypro.homework.entity.User;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Удаляет из второго уровня кэша Hibernate сущности, измененные на другом экземпляре приложения.
+ * Для пользователей ключом события служит адрес электронной почты, поэтому удаляется весь регион
+ * пользователей вместе с результатами поиска по email.
+ * Обработчик выполняется раньше остальных, чтобы они не перечитали устаревшие данные из кэша.
+ */
+@Component
+@RequiredArgsConstructor
+public class SecondLevelCacheEvictor {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    @EventListener
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onInvalidation(CacheInvalidationEvent event) {
+        Cache cache = entityManagerFactory.getCache().unwrap(Cache.class);
+        switch (event.getType()) {
+            case ADS:
+                event.getKeys().forEach(id -> cache.evictEntityData(Ads.class, Integer.valueOf(id)));
+                break;
+            case USER:
+                cache.evictEntityData(User.class);
+                cache.evictQueryRegion(HibernateCacheConfig.USERS_BY_EMAIL_REGION);
+                break;
+            case ALL:
+                cache.evictAllRegions();
+                break;
+            default:
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package ru.skypro.homework.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Проверяет при запуске приложения, что в базе данных созданы индексы,
+ * на которые опираются запросы репозиториев. Если какого-либо индекса нет,
+ * запуск прерывается, а не продолжается с полным сканированием таблиц.
+ * Отключается свойством {@code db.index-check.enabled=false}.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@ConditionalOnProperty(value = "db.index-check.enabled", matchIfMissing = true)
+public class DatabaseIndexVerifier implements ApplicationRunner {
+
+    static final Map<String, List<String>> EXPECTED_INDEXES = new LinkedHashMap<>();
+
+    static {
+        EXPECTED_INDEXES.put("users", List.of("users_email_lower_uidx", "users_image_idx"));
+        EXPECTED_INDEXES.put("ads", List.of("ads_user_id_idx", "ads_price_id_idx", "ads_created_at_id_idx", "ads_image_idx"));
+        EXPECTED_INDEXES.put("comments", List.of("comments_ads_id_created_at_idx", "comments_user_id_idx"));
+    }
+
+    private final DataSource dataSource;
+
+    @Override
+    public void run(ApplicationArguments args) throws SQLException {
+        List<String> missing = findMissingIndexes();
+        if (!missing.isEmpty()) {
+            throw new IllegalStateException("Missing database indexes: " + String.join(", ", missing));
+        }
+        log.info("Verified {} database indexes", EXPECTED_INDEXES.values().stream().mapToInt(List::size).sum());
+    }
+
+    /**
+     * Возвращает список отсутствующих индексов в виде {@code таблица.индекс}.
+     */
+    List<String> findMissingIndexes() throws SQLException {
+        List<String> missing = new ArrayList<>();
+        try (Connection connection = dataSource.getConnection()) {
+            DatabaseMetaData metaData = connection.getMetaData();
+            for (Map.Entry<String, List<String>> entry : EXPECTED_INDEXES.entrySet()) {
+                Set<String> present = getIndexNames(metaData, entry.getKey());
+                for (String index : entry.getValue()) {
+                    if (!present.contains(index)) {
+                        missing.add(entry.getKey() + "." + index);
+                    }
+                }
+            }
+        }
+        return missing;
+    }
+
+    private Set<String> getIndexNames(DatabaseMetaData metaData, String table) throws SQLException {
+        String name = metaData.storesUpperCaseIdentifiers() ? table.toUpperCase(Locale.ROOT) : table;
+        Set<String> indexes = new HashSet<>();
+        try (ResultSet rs = metaData.getIndexInfo(null, null, name, false, true)) {
+            while (rs.next()) {
+                String index = rs.getString("INDEX_NAME");
+                if (index != null) {
+                    indexes.add(index.toLowerCase(Locale.ROOT));
+                }
+            }
+        }
+        return indexes;
+    }
+}
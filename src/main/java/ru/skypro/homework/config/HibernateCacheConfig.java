@@ -0,0 +1,94 @@
+package ru.skypro.homework.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.time.Duration;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Настройка второго уровня кэша Hibernate и кэша запросов на Caffeine JCache.
+ * <p>
+ * Регионы создаются явно с размером и временем жизни из свойств {@code jpa.cache.*}:
+ * {@value #USERS_REGION} и {@value #ADS_REGION} для сущностей, {@value #USERS_BY_EMAIL_REGION}
+ * для результатов {@link ru.skypro.homework.repository.UserRepository#findByEmail(String)}
+ * и {@code default-query-results-region} для остальных кэшируемых запросов.
+ * Регионы, не описанные здесь, Hibernate создавать не будет ({@code missing_cache_strategy=fail}).
+ * Регионы живут в собственном {@link CacheManager} контекста, который закрывается вместе с ним.
+ * <p>
+ * Без этой конфигурации ({@code jpa.cache.enabled=false}) кэши Hibernate выключены
+ * свойствами {@code spring.jpa.properties.hibernate.cache.*} в {@code application.properties}.
+ * Статистика регионов доступна в метриках {@code hibernate.second.level.cache.*}
+ * при {@code hibernate.generate_statistics=true}.
+ */
+@Configuration
+@ConditionalOnProperty(value = "jpa.cache.enabled", matchIfMissing = true)
+public class HibernateCacheConfig {
+
+    public static final String USERS_REGION = "users";
+    public static final String ADS_REGION = "ads";
+    public static final String USERS_BY_EMAIL_REGION = "users-by-email";
+
+    private static final String QUERY_RESULTS_REGION = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS_REGION = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(@Value("${jpa.cache.users.max-size:10000}") long usersMaxSize,
+                                              @Value("${jpa.cache.users.ttl:PT10M}") Duration usersTtl,
+                                              @Value("${jpa.cache.ads.max-size:50000}") long adsMaxSize,
+                                              @Value("${jpa.cache.ads.ttl:PT10M}") Duration adsTtl,
+                                              @Value("${jpa.cache.users-by-email.max-size:10000}") long usersByEmailMaxSize,
+                                              @Value("${jpa.cache.users-by-email.ttl:PT10M}") Duration usersByEmailTtl,
+                                              @Value("${jpa.cache.query-results.max-size:10000}") long queryResultsMaxSize,
+                                              @Value("${jpa.cache.query-results.ttl:PT10M}") Duration queryResultsTtl) {
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        // Не общий CacheManager провайдера по умолчанию: его закрытие затронуло бы другие контексты в той же JVM.
+        CacheManager cacheManager = provider.getCacheManager(URI.create("hibernate:" + UUID.randomUUID()),
+                getClass().getClassLoader());
+        createCache(cacheManager, USERS_REGION, usersMaxSize, usersTtl);
+        createCache(cacheManager, ADS_REGION, adsMaxSize, adsTtl);
+        createCache(cacheManager, USERS_BY_EMAIL_REGION, usersByEmailMaxSize, usersByEmailTtl);
+        createCache(cacheManager, QUERY_RESULTS_REGION, queryResultsMaxSize, queryResultsTtl);
+        // Метки времени изменения таблиц не должны вытесняться раньше результатов запросов.
+        createCache(cacheManager, UPDATE_TIMESTAMPS_REGION, null, null);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer hibernateCacheCustomizer(CacheManager hibernateCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.USE_QUERY_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, "jcache");
+            properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private static void createCache(CacheManager cacheManager, String name, Long maxSize, Duration ttl) {
+        if (cacheManager.getCache(name) != null) {
+            return;
+        }
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        if (maxSize != null) {
+            configuration.setMaximumSize(OptionalLong.of(maxSize));
+        }
+        if (ttl != null) {
+            configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        }
+        configuration.setStatisticsEnabled(true);
+        cacheManager.createCache(name, configuration);
+    }
+}
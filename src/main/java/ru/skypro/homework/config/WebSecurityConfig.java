@@ -3,12 +3,17 @@ package ru.skypro.homework.config;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.security.authentication.ProviderManager;
 import org.springframework.security.config.annotation.method.configuration.EnableGlobalMethodSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.http.SessionCreationPolicy;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.www.BasicAuthenticationFilter;
+import ru.skypro.homework.security.BearerTokenAuthenticationFilter;
+import ru.skypro.homework.security.CachingAuthenticationProvider;
+import ru.skypro.homework.security.TokenService;
 
 import static org.springframework.security.config.Customizer.withDefaults;
 
@@ -22,26 +27,35 @@ public class WebSecurityConfig {
             "/v3/api-docs",
             "/webjars/**",
             "/login",
+            "/refresh",
             "/register"
     };
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
-        http.csrf()
+    public SecurityFilterChain filterChain(HttpSecurity http,
+                                           CachingAuthenticationProvider authenticationProvider,
+                                           TokenService tokenService) throws Exception {
+        http.authenticationManager(new ProviderManager(authenticationProvider))
+                .csrf()
                 .disable()
                 .authorizeHttpRequests(
                         (authorization) ->
                                 authorization
                                         .mvcMatchers(AUTH_WHITELIST)
                                         .permitAll()
-                                        .mvcMatchers(HttpMethod.GET, "/ads", "/ads/image/*", "/users/image/*")
+                                        .mvcMatchers(HttpMethod.GET, "/ads", "/ads/export", "/ads/search", "/ads/suggest", "/ads/image/*", "/users/image/*")
                                         .permitAll()
                                         .mvcMatchers("/ads/**", "/users/**")
                                         .authenticated()
+                                        .mvcMatchers("/actuator/health")
+                                        .permitAll()
+                                        .mvcMatchers("/actuator/**")
+                                        .hasRole("ADMIN")
                 )
                 .cors()
                 .and()
                 .sessionManagement(configurer -> configurer.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
+                .addFilterBefore(new BearerTokenAuthenticationFilter(tokenService), BasicAuthenticationFilter.class)
                 .httpBasic(withDefaults());
         return http.build();
     }
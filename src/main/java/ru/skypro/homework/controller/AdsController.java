@@ -3,6 +3,9 @@ package ru.skypro.homework.controller;
 import io.swagger.annotations.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.Resource;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -10,10 +13,17 @@ import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.skypro.homework.dto.*;
+import ru.skypro.homework.exception.InvalidBulkDeleteException;
+import ru.skypro.homework.service.AdsImportService;
 import ru.skypro.homework.service.AdsService;
+import ru.skypro.homework.service.ImageService;
 
 import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
 
 @Slf4j
 @CrossOrigin(origins = "http://localhost:3000")
@@ -24,21 +34,97 @@ import java.io.IOException;
 public class AdsController {
 
     private final AdsService adsService;
+    private final AdsImportService adsImportService;
+    private final ImageService imageService;
 
     /**
-     * Получить список всех объявлений.
+     * Получить страницу списка всех объявлений.
      *
-     * @return Объект {@link ResponseEntity} с оберткой {@link ResponseWrapperAds}, содержащей список объявлений и статус ответа.
-     * @see AdsService#getAllAds()
+     * @param minPrice Минимальная цена включительно; не указывается, если фильтр не нужен.
+     * @param maxPrice Максимальная цена включительно; не указывается, если фильтр не нужен.
+     * @param sort     Порядок объявлений: {@code id}, {@code price} или {@code newest}.
+     * @param cursor   Курсор следующей страницы из поля {@code next} предыдущего ответа; не указывается для первой страницы.
+     * @param size     Количество объявлений на странице.
+     * @return Объект {@link ResponseEntity} с оберткой {@link ResponseWrapperAds}, содержащей страницу объявлений,
+     * гистограмму цен и статус ответа.
+     * @see AdsService#getAllAds(Integer, Integer, AdsSort, String, int)
      */
     @ApiOperation(value = "Получить список всех объявлений", response = ResponseWrapperAds.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Успешно получен список объявлений"),
+            @ApiResponse(code = 400, message = "Некорректный курсор"),
             @ApiResponse(code = 500, message = "Ошибка сервера")
     })
     @GetMapping
-    public ResponseEntity<ResponseWrapperAds> getAllAds() {
-        return ResponseEntity.ok(adsService.getAllAds());
+    public ResponseEntity<ResponseWrapperAds> getAllAds(@RequestParam(required = false) Integer minPrice,
+                                                        @RequestParam(required = false) Integer maxPrice,
+                                                        @RequestParam(defaultValue = "id") String sort,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(adsService.getAllAds(minPrice, maxPrice, AdsSort.of(sort), cursor, size));
+    }
+
+    /**
+     * Найти объявления по тексту заголовка и описания.
+     * Результаты упорядочены по релевантности; для перехода к следующей странице
+     * передается курсор из поля {@code next} предыдущего ответа.
+     *
+     * @param q      Строка поиска.
+     * @param cursor Курсор следующей страницы или null для первой страницы.
+     * @param size   Размер страницы.
+     * @return Объект {@link ResponseEntity} с оберткой {@link ResponseWrapperAds}, содержащей найденные объявления.
+     * @see AdsService#searchAds(String, String, int)
+     */
+    @ApiOperation(value = "Найти объявления", response = ResponseWrapperAds.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Успешно выполнен поиск"),
+            @ApiResponse(code = 400, message = "Некорректный курсор"),
+            @ApiResponse(code = 500, message = "Ошибка сервера")
+    })
+    @GetMapping("/search")
+    public ResponseEntity<ResponseWrapperAds> searchAds(@RequestParam String q,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(adsService.searchAds(q, cursor, size));
+    }
+
+    /**
+     * Подсказать объявления по мере набора строки поиска.
+     *
+     * @param q    Строка поиска; последнее слово может быть неполным.
+     * @param size Количество результатов.
+     * @return Объект {@link ResponseEntity} с оберткой {@link ResponseWrapperAds}, содержащей найденные объявления.
+     * @see AdsService#suggestAds(String, int)
+     */
+    @ApiOperation(value = "Подсказать объявления", response = ResponseWrapperAds.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Успешно выполнен поиск"),
+            @ApiResponse(code = 500, message = "Ошибка сервера")
+    })
+    @GetMapping("/suggest")
+    public ResponseEntity<ResponseWrapperAds> suggestAds(@RequestParam String q,
+                                                         @RequestParam(defaultValue = "10") int size) {
+        return ResponseEntity.ok(adsService.suggestAds(q, size));
+    }
+
+    /**
+     * Выгрузить все объявления одним потоковым JSON-массивом.
+     * Ответ формируется по мере чтения объявлений из базы данных, не накапливаясь в памяти.
+     *
+     * @return Объект {@link ResponseEntity} с телом {@link StreamingResponseBody}, записывающим массив {@link AdsDto}.
+     * @see AdsService#exportAds(java.io.OutputStream)
+     */
+    @ApiOperation(value = "Выгрузить все объявления", response = AdsDto.class, responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Успешно выгружены объявления"),
+            @ApiResponse(code = 500, message = "Ошибка сервера")
+    })
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportAds() {
+        StreamingResponseBody body = adsService::exportAds;
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
     }
 
     /**
@@ -80,12 +166,60 @@ public class AdsController {
         return ResponseEntity.ok(adsService.addAd(createAds, authentication.getName(), image));
     }
 
+    /**
+     * Загрузить изображение для последующей массовой загрузки объявлений.
+     *
+     * @param image Объект {@link MultipartFile} с изображением.
+     * @return Объект {@link ResponseEntity} с идентификатором изображения для поля {@code image} строк
+     * массовой загрузки и путем для его получения.
+     * @see ImageService#saveImage(MultipartFile, String)
+     */
+    @ApiOperation(value = "Загрузить изображение для массовой загрузки объявлений", response = UploadedImage.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Изображение загружено"),
+            @ApiResponse(code = 401, message = "Неавторизованный запрос")
+    })
+    @PostMapping(value = "/images", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<UploadedImage> uploadImage(@RequestPart("image") MultipartFile image) {
+        String path = imageService.saveImage(image, "/ads");
+        return ResponseEntity.ok(new UploadedImage(path.substring(path.lastIndexOf('/') + 1), path));
+    }
+
+    /**
+     * Массово добавить объявления пользователя, выполнившего аутентификацию.
+     * Тело запроса — строки {@link BulkAdsRow} в формате NDJSON или CSV с заголовком;
+     * оно читается потоком, а результаты {@link BulkAdsResult} возвращаются по мере сохранения, по одному на строку.
+     *
+     * @param authentication Объект {@link Authentication} с информацией об аутентифицированном пользователе.
+     * @param contentType    Тип содержимого запроса: {@value BulkFormat#NDJSON_VALUE} или {@value BulkFormat#CSV_VALUE}.
+     * @param body           Тело запроса.
+     * @return Объект {@link ResponseEntity} с телом {@link StreamingResponseBody}, записывающим результаты в формате NDJSON.
+     * @see AdsImportService#importAds(InputStream, BulkFormat, String, java.io.OutputStream)
+     */
+    @ApiOperation(value = "Массово добавить объявления", response = BulkAdsResult.class, responseContainer = "List")
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Строки обработаны, результат каждой строки указан в ответе"),
+            @ApiResponse(code = 401, message = "Неавторизованный запрос"),
+            @ApiResponse(code = 415, message = "Неподдерживаемый формат")
+    })
+    @PostMapping(value = "/bulk", consumes = {BulkFormat.NDJSON_VALUE, BulkFormat.CSV_VALUE}, produces = BulkFormat.NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> importAds(Authentication authentication,
+                                                           @RequestHeader(HttpHeaders.CONTENT_TYPE) MediaType contentType,
+                                                           InputStream body) {
+        BulkFormat format = BulkFormat.of(contentType);
+        String email = authentication.getName();
+        StreamingResponseBody responseBody = outputStream -> adsImportService.importAds(body, format, email, outputStream);
+        return ResponseEntity.ok()
+                .contentType(MediaType.valueOf(BulkFormat.NDJSON_VALUE))
+                .body(responseBody);
+    }
+
     /**
      * Получить объявление по его идентификатору.
      *
      * @param id Идентификатор объявления, который нужно получить.
-     * @return Объект {@link ResponseEntity} с найденным объявлением и статусом ответа.
-     * @see AdsService#getAds(Integer)
+     * @return Объект {@link ResponseEntity} с JSON найденного объявления ({@link FullAds}) и статусом ответа.
+     * @see AdsService#getAdsJson(Integer)
      */
     @ApiOperation(value = "Получить объявление по его идентификатору", response = FullAds.class)
     @ApiResponses(value = {
@@ -94,8 +228,10 @@ public class AdsController {
             @ApiResponse(code = 500, message = "Ошибка сервера")
     })
     @GetMapping("/{id}")
-    public ResponseEntity<FullAds> getAds(@PathVariable Integer id) {
-        return ResponseEntity.ok(adsService.getAds(id));
+    public ResponseEntity<byte[]> getAds(@PathVariable Integer id) {
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(adsService.getAdsJson(id));
     }
 
     /**
@@ -142,11 +278,16 @@ public class AdsController {
     }
 
     /**
-     * Получить список комментариев объявления по его идентификатору.
+     * Получить страницу комментариев объявления по его идентификатору.
+     * Для перехода к следующей странице передается курсор {@code next} предыдущего ответа,
+     * для получения только новых комментариев — курсор {@code latest} в параметре {@code since}.
      *
-     * @param id Идентификатор объявления, для которого нужно получить комментарии.
-     * @return Объект {@link ResponseEntity} с оберткой {@link ResponseWrapperComment}, содержащей список комментариев и статус ответа.
-     * @see AdsService#getComments(Integer)
+     * @param id     Идентификатор объявления, для которого нужно получить комментарии.
+     * @param cursor Курсор следующей страницы или null для первой страницы.
+     * @param since  Курсор последнего полученного комментария; имеет приоритет над {@code cursor}.
+     * @param size   Размер страницы.
+     * @return Объект {@link ResponseEntity} с оберткой {@link ResponseWrapperComment}, содержащей страницу комментариев и статус ответа.
+     * @see AdsService#getComments(Integer, String, int)
      */
     @ApiOperation(value = "Получить список комментариев объявления по его идентификатору", response = ResponseWrapperComment.class)
     @ApiResponses(value = {
@@ -157,8 +298,11 @@ public class AdsController {
             @ApiResponse(code = 404, message = "Объявление не найдено")
     })
     @GetMapping("/{id}/comments")
-    public ResponseEntity<ResponseWrapperComment> getComments(@PathVariable Integer id) {
-        return ResponseEntity.ok(adsService.getComments(id));
+    public ResponseEntity<ResponseWrapperComment> getComments(@PathVariable Integer id,
+                                                              @RequestParam(required = false) String cursor,
+                                                              @RequestParam(required = false) String since,
+                                                              @RequestParam(defaultValue = "20") int size) {
+        return ResponseEntity.ok(adsService.getComments(id, since != null ? since : cursor, size));
     }
 
     /**
@@ -208,6 +352,55 @@ public class AdsController {
         return ResponseEntity.ok(HttpStatus.NO_CONTENT);
     }
 
+    /**
+     * Массово удалить комментарии по списку идентификаторов или по автору.
+     * Удаление выполняется одним запросом к базе данных; должен быть указан ровно один из параметров.
+     *
+     * @param ids    Идентификаторы комментариев.
+     * @param author Идентификатор автора, все комментарии которого нужно удалить.
+     * @return Объект {@link ResponseEntity} с количеством удаленных комментариев.
+     * @see AdsService#deleteComments(List)
+     * @see AdsService#deleteCommentsByAuthor(Integer)
+     */
+    @ApiOperation(value = "Массово удалить комментарии", response = BulkDeleteResult.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Комментарии удалены"),
+            @ApiResponse(code = 400, message = "Некорректный запрос"),
+            @ApiResponse(code = 401, message = "Неавторизованный запрос"),
+            @ApiResponse(code = 403, message = "Запрещено")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/comments")
+    public ResponseEntity<BulkDeleteResult> deleteComments(@RequestParam(required = false) List<Integer> ids,
+                                                           @RequestParam(required = false) Integer author) {
+        if ((ids == null) == (author == null)) {
+            throw new InvalidBulkDeleteException("Exactly one of ids and author is required");
+        }
+        return ResponseEntity.ok(ids != null ? adsService.deleteComments(ids) : adsService.deleteCommentsByAuthor(author));
+    }
+
+    /**
+     * Массово удалить комментарии объявления одним запросом к базе данных.
+     *
+     * @param adId  Идентификатор объявления.
+     * @param since Время в формате ISO, начиная с которого удаляются комментарии; если не указано, удаляются все.
+     * @return Объект {@link ResponseEntity} с количеством удаленных комментариев.
+     * @see AdsService#deleteCommentsByAds(Integer, LocalDateTime)
+     */
+    @ApiOperation(value = "Массово удалить комментарии объявления", response = BulkDeleteResult.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Комментарии удалены"),
+            @ApiResponse(code = 401, message = "Неавторизованный запрос"),
+            @ApiResponse(code = 403, message = "Запрещено")
+    })
+    @PreAuthorize("hasRole('ADMIN')")
+    @DeleteMapping("/{adId}/comments")
+    public ResponseEntity<BulkDeleteResult> deleteCommentsByAds(@PathVariable Integer adId,
+                                                                @RequestParam(required = false)
+                                                                @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime since) {
+        return ResponseEntity.ok(adsService.deleteCommentsByAds(adId, since));
+    }
+
     /**
      * Обновить комментарий объявления по его идентификаторам.
      *
@@ -258,17 +451,22 @@ public class AdsController {
      * Получить изображение по его имени.
      *
      * @param name Имя изображения, которое нужно получить.
-     * @return Массив байтов с содержимым изображения в формате PNG.
-     * @throws IOException Исключение, возникающее при ошибке чтения изображения.
-     * @see AdsService#getImage(String)
+     * @param size Размер изображения: {@code thumb}, {@code medium} или {@code full} (оригинал, по умолчанию).
+     * @return Объект {@link ResponseEntity} с содержимым изображения, типом содержимого по расширению файла
+     * и заголовками кэширования, или статус NOT_FOUND, если изображение не найдено.
+     * @throws IOException Исключение, возникающее при ошибке чтения атрибутов файла изображения.
+     * @see AdsService#getImage(String, ImageSize)
      */
-    @ApiOperation(value = "Получить изображение по его имени", response = byte[].class)
+    @ApiOperation(value = "Получить изображение по его имени", response = Resource.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Успешное получение изображения"),
+            @ApiResponse(code = 206, message = "Получена часть изображения по заголовку Range"),
+            @ApiResponse(code = 304, message = "Изображение не изменилось"),
             @ApiResponse(code = 404, message = "Изображение не найдено")
     })
-    @GetMapping(value = "/image/{name}", produces = MediaType.IMAGE_PNG_VALUE)
-    public byte[] getImages(@PathVariable String name) throws IOException {
-        return adsService.getImage(name);
+    @GetMapping("/image/{name}")
+    public ResponseEntity<Resource> getImages(@PathVariable String name,
+                                              @RequestParam(defaultValue = "full") String size) throws IOException {
+        return ImageResponses.of(adsService.getImage(name, ImageSize.of(size)));
     }
 }
@@ -12,8 +12,10 @@ import org.springframework.web.bind.annotation.CrossOrigin;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RestController;
+import ru.skypro.homework.dto.AuthTokens;
 import ru.skypro.homework.dto.CreateAds;
 import ru.skypro.homework.dto.Login;
+import ru.skypro.homework.dto.RefreshToken;
 import ru.skypro.homework.dto.Register;
 import ru.skypro.homework.dto.Role;
 import ru.skypro.homework.service.AdsService;
@@ -33,22 +35,40 @@ public class AuthController {
      * Метод для выполнения входа пользователя в систему.
      *
      * @param login Объект {@link Login} с данными для входа (почта пользователя и пароль).
-     * @return Объект {@link ResponseEntity} без тела ответа с кодом 200 (OK) в случае успешного входа,
+     * @return Объект {@link ResponseEntity} с кодом 200 (OK) и объектом {@link AuthTokens} в случае успешного входа,
      *         или объект {@link ResponseEntity} с кодом 401 (UNAUTHORIZED) в случае неудачной аутентификации.
      * @see AuthService#login(String, String)
      */
-    @ApiOperation(value = "Аутентификация пользователя", response = ResponseEntity.class)
+    @ApiOperation(value = "Аутентификация пользователя", response = AuthTokens.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Успешная аутентификация"),
             @ApiResponse(code = 401, message = "Неавторизованный доступ")
     })
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Login login) {
-        if (authService.login(login.getUsername(), login.getPassword())) {
-            return ResponseEntity.ok().build();
-        } else {
-            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
-        }
+    public ResponseEntity<AuthTokens> login(@RequestBody Login login) {
+        return authService.login(login.getUsername(), login.getPassword())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
+    }
+
+    /**
+     * Метод для получения новой пары токенов по токену обновления.
+     *
+     * @param refreshToken Объект {@link RefreshToken} с токеном обновления, полученным при входе.
+     * @return Объект {@link ResponseEntity} с кодом 200 (OK) и новым объектом {@link AuthTokens},
+     *         или объект {@link ResponseEntity} с кодом 401 (UNAUTHORIZED), если токен недействителен.
+     * @see AuthService#refresh(String)
+     */
+    @ApiOperation(value = "Обновление токенов", response = AuthTokens.class)
+    @ApiResponses(value = {
+            @ApiResponse(code = 200, message = "Токены обновлены"),
+            @ApiResponse(code = 401, message = "Токен обновления недействителен")
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<AuthTokens> refresh(@RequestBody RefreshToken refreshToken) {
+        return authService.refresh(refreshToken.getRefreshToken())
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.status(HttpStatus.UNAUTHORIZED).build());
     }
 
     /**
@@ -0,0 +1,47 @@
+package ru.skypro.homework.controller;
+
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.http.ResponseEntity;
+
+import java.io.IOException;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Формирует ответы с изображениями для {@link AdsController} и {@link UserController}.
+ * <p>
+ * Имена изображений образованы от хеша содержимого (или уникальны для файлов, загруженных раньше),
+ * и файлы после записи не изменяются, поэтому ответ кэшируется клиентом на год с признаком
+ * {@code immutable}, а {@code ETag} строится из имени файла. Время изменения файла для этого
+ * не подходит: оно обновляется при повторной загрузке того же изображения. Проверку {@code If-None-Match}
+ * и {@code If-Modified-Since} (ответ 304) и обработку заголовка {@code Range} (ответ 206)
+ * выполняет Spring MVC по заголовкам {@code ETag}/{@code Last-Modified} и телу {@link Resource}.
+ */
+final class ImageResponses {
+
+    private static final String CACHE_CONTROL = CacheControl.maxAge(365, TimeUnit.DAYS)
+            .cachePublic()
+            .getHeaderValue() + ", immutable";
+
+    private ImageResponses() {
+    }
+
+    static ResponseEntity<Resource> of(Optional<Resource> image) throws IOException {
+        if (image.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+        Resource resource = image.get();
+        long lastModified = resource.lastModified();
+        String eTag = "\"" + resource.getFilename() + "\"";
+        return ResponseEntity.ok()
+                .contentType(MediaTypeFactory.getMediaType(resource).orElse(MediaType.APPLICATION_OCTET_STREAM))
+                .eTag(eTag)
+                .lastModified(lastModified)
+                .header(HttpHeaders.CACHE_CONTROL, CACHE_CONTROL)
+                .body(resource);
+    }
+}
@@ -5,12 +5,14 @@ import io.swagger.annotations.ApiOperation;
 import io.swagger.annotations.ApiResponse;
 import io.swagger.annotations.ApiResponses;
 import lombok.RequiredArgsConstructor;
+import org.springframework.core.io.Resource;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.dto.ImageSize;
 import ru.skypro.homework.dto.NewPassword;
 import ru.skypro.homework.dto.UserDto;
 import ru.skypro.homework.service.UserService;
@@ -108,17 +110,22 @@ public class UserController {
      * Получить изображение пользователя по его имени.
      *
      * @param name Имя изображения пользователя, которое нужно получить.
-     * @return Массив байтов с содержимым изображения в формате PNG.
-     * @throws IOException Исключение, возникающее при ошибке чтения изображения.
-     * @see UserService#getImage(String)
+     * @param size Размер изображения: {@code thumb}, {@code medium} или {@code full} (оригинал, по умолчанию).
+     * @return Объект {@link ResponseEntity} с содержимым изображения, типом содержимого по расширению файла
+     * и заголовками кэширования, или статус NOT_FOUND, если изображение не найдено.
+     * @throws IOException Исключение, возникающее при ошибке чтения атрибутов файла изображения.
+     * @see UserService#getImage(String, ImageSize)
      */
-    @ApiOperation(value = "Получить изображение пользователя по его имени")
+    @ApiOperation(value = "Получить изображение пользователя по его имени", response = Resource.class)
     @ApiResponses(value = {
             @ApiResponse(code = 200, message = "Изображение пользователя успешно получено"),
+            @ApiResponse(code = 206, message = "Получена часть изображения по заголовку Range"),
+            @ApiResponse(code = 304, message = "Изображение не изменилось"),
             @ApiResponse(code = 404, message = "Изображение пользователя не найдено")
     })
-    @GetMapping(value = "/image/{name}", produces = {MediaType.IMAGE_PNG_VALUE})
-    public byte[] getImages(@PathVariable String name) throws IOException {
-        return userService.getImage(name);
+    @GetMapping("/image/{name}")
+    public ResponseEntity<Resource> getImages(@PathVariable String name,
+                                              @RequestParam(defaultValue = "full") String size) throws IOException {
+        return ImageResponses.of(userService.getImage(name, ImageSize.of(size)));
     }
 }
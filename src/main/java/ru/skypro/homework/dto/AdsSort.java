@@ -0,0 +1,38 @@
+package ru.skypro.homework.dto;
+
+import java.util.Locale;
+
+/**
+ * Порядок объявлений в ленте.
+ */
+public enum AdsSort {
+    /**
+     * По возрастанию идентификатора.
+     */
+    ID,
+    /**
+     * По возрастанию цены.
+     */
+    PRICE,
+    /**
+     * Сначала новые.
+     */
+    NEWEST;
+
+    public String getValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Возвращает порядок по значению параметра запроса {@code sort}.
+     * Неизвестные и пустые значения соответствуют порядку по идентификатору.
+     */
+    public static AdsSort of(String value) {
+        for (AdsSort sort : values()) {
+            if (sort.getValue().equalsIgnoreCase(value)) {
+                return sort;
+            }
+        }
+        return ID;
+    }
+}
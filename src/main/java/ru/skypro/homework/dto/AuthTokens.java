@@ -0,0 +1,12 @@
+package ru.skypro.homework.dto;
+
+import lombok.Data;
+
+@Data
+public class AuthTokens {
+
+    private String accessToken;
+    private String refreshToken;
+    private String tokenType;
+    private long expiresIn;
+}
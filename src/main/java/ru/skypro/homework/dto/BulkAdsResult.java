@@ -0,0 +1,29 @@
+package ru.skypro.homework.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Результат обработки строки массовой загрузки: идентификатор созданного объявления
+ * или описание ошибки. Строки нумеруются с единицы без учета заголовка CSV.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BulkAdsResult {
+
+    private int row;
+    private Integer pk;
+    private String error;
+
+    public static BulkAdsResult created(int row, Integer pk) {
+        return new BulkAdsResult(row, pk, null);
+    }
+
+    public static BulkAdsResult failed(int row, String error) {
+        return new BulkAdsResult(row, null, error);
+    }
+}
@@ -0,0 +1,18 @@
+package ru.skypro.homework.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+
+/**
+ * Строка массовой загрузки объявлений: данные {@link CreateAds} и идентификатор
+ * изображения, загруженного ранее через {@code POST /ads/images}.
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class BulkAdsRow {
+
+    private String description;
+    private Integer price;
+    private String title;
+    private String image;
+}
@@ -0,0 +1,27 @@
+package ru.skypro.homework.dto;
+
+import org.springframework.http.MediaType;
+
+/**
+ * Формат тела запроса массовой загрузки объявлений.
+ */
+public enum BulkFormat {
+    /**
+     * Объекты JSON, по одному на строку.
+     */
+    NDJSON,
+    /**
+     * CSV с заголовком; имена столбцов совпадают с полями {@link BulkAdsRow}.
+     */
+    CSV;
+
+    public static final String NDJSON_VALUE = "application/x-ndjson";
+    public static final String CSV_VALUE = "text/csv";
+
+    /**
+     * Возвращает формат по типу содержимого запроса. Все типы, кроме {@value #CSV_VALUE}, считаются NDJSON.
+     */
+    public static BulkFormat of(MediaType contentType) {
+        return contentType != null && MediaType.valueOf(CSV_VALUE).includes(contentType) ? CSV : NDJSON;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.skypro.homework.dto;
+
+import java.util.Locale;
+
+public enum ImageSize {
+    THUMB, MEDIUM, FULL;
+
+    public String getValue() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Возвращает размер по значению параметра запроса {@code size}.
+     * Неизвестные и пустые значения соответствуют оригиналу.
+     */
+    public static ImageSize of(String value) {
+        for (ImageSize size : values()) {
+            if (size.getValue().equalsIgnoreCase(value)) {
+                return size;
+            }
+        }
+        return FULL;
+    }
+}
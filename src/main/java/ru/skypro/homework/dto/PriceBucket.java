@@ -0,0 +1,18 @@
+package ru.skypro.homework.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Интервал цен гистограммы: цены от {@code from} до {@code to} включительно и количество объявлений.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PriceBucket {
+
+    private int from;
+    private int to;
+    private long count;
+}
@@ -9,4 +9,6 @@ public class ResponseWrapperAds {
 
     private int count;
     private List<AdsDto> results;
+    private String next;
+    private List<PriceBucket> priceHistogram;
 }
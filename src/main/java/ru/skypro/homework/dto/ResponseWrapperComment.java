@@ -7,6 +7,11 @@ import java.util.List;
 @Data
 public class ResponseWrapperComment {
 
-    private int count;
+    /**
+     * Общее количество комментариев объявления; заполняется только для первой страницы (запроса без курсора).
+     */
+    private Integer count;
     private List<CommentDto> results;
+    private String next;
+    private String latest;
 }
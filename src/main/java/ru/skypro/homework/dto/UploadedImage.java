@@ -0,0 +1,18 @@
+package ru.skypro.homework.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Изображение, загруженное без объявления: {@code id} указывается в поле {@code image}
+ * строк массовой загрузки, {@code image} — путь для получения изображения.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class UploadedImage {
+
+    private String id;
+    private String image;
+}
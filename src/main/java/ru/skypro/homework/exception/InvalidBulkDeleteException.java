@@ -0,0 +1,11 @@
+package ru.skypro.homework.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@ResponseStatus(HttpStatus.BAD_REQUEST)
+public class InvalidBulkDeleteException extends RuntimeException {
+    public InvalidBulkDeleteException(String message) {
+        super(message);
+    }
+}
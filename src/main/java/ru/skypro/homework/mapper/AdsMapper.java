@@ -3,9 +3,11 @@ package ru.skypro.homework.mapper;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
+import org.mapstruct.Named;
 import ru.skypro.homework.dto.AdsDto;
 import ru.skypro.homework.dto.CreateAds;
 import ru.skypro.homework.dto.FullAds;
+import ru.skypro.homework.dto.ImageSize;
 import ru.skypro.homework.entity.Ads;
 
 import java.util.List;
@@ -17,6 +19,7 @@ public interface AdsMapper {
 
     @Mapping(target = "author", source = "user.id")
     @Mapping(target = "pk", source = "id")
+    @Mapping(target = "image", source = "image", qualifiedByName = "thumbnail")
     AdsDto toAdsDto(Ads ads);
 
     List<AdsDto> toDtos(List<Ads> adsList);
@@ -29,4 +32,9 @@ public interface AdsMapper {
     FullAds toFullAds(Ads ads);
 
     void updateAds(CreateAds createAds, @MappingTarget Ads ads);
+
+    @Named("thumbnail")
+    default String toThumbnail(String image) {
+        return image == null ? null : image + "?size=" + ImageSize.THUMB.getValue();
+    }
 }
@@ -1,13 +1,103 @@
 package ru.skypro.homework.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.skypro.homework.dto.FullAds;
 import ru.skypro.homework.entity.Ads;
 import ru.skypro.homework.entity.User;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+import static org.hibernate.jpa.QueryHints.HINT_READONLY;
 
 @Repository
-public interface AdsRepository extends JpaRepository<Ads, Integer> {
+public interface AdsRepository extends JpaRepository<Ads, Integer>, AdsRepositoryCustom {
+
+    /**
+     * Объявления, подходящие под запрос {@code :query}, и их ранг.
+     */
+    String SEARCH_HITS = "SELECT a.id AS id, " +
+            "CAST(ts_rank(a.search_vector, plainto_tsquery('russian', :query)) AS FLOAT8) AS rank " +
+            "FROM ads a WHERE a.search_vector @@ plainto_tsquery('russian', :query)";
+
     List<Ads> findByUser(User user);
+
+    @Query("select a.id from ads a where a.user.id = :userId")
+    List<Integer> findIdsByUserId(@Param("userId") Integer userId);
+
+    /**
+     * Количество объявлений, ссылающихся на изображение по одному из путей {@code images}
+     * (индекс {@code ads_image_idx}).
+     */
+    long countByImageIn(Collection<String> images);
+
+    /**
+     * Пути изображений из {@code images}, на которые ссылаются объявления.
+     */
+    @Query("select distinct a.image from ads a where a.image in :images")
+    List<String> findImagesIn(@Param("images") Collection<String> images);
+
+    List<Ads> findByIdGreaterThanOrderByIdAsc(Integer id, Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HINT_READONLY, value = "true")
+    })
+    Stream<Ads> streamAllByOrderByIdAsc();
+
+    /**
+     * Полная информация об объявлении вместе с данными автора одним запросом.
+     */
+    @Query("select new ru.skypro.homework.dto.FullAds(a.id, u.firstName, u.lastName, a.description, " +
+            "u.email, a.image, u.phone, a.price, a.title) " +
+            "from ads a left join a.user u where a.id = :id")
+    Optional<FullAds> findFullAdsById(@Param("id") Integer id);
+
+    @Query("select min(a.price) as minPrice, max(a.price) as maxPrice from ads a")
+    PriceRange findPriceRange();
+
+    /**
+     * Количество объявлений в интервалах цен шириной {@code width}, начиная с цены {@code min}.
+     * Интервалы без объявлений не возвращаются.
+     */
+    @Query(value = "SELECT b.bucket AS bucket, COUNT(*) AS total " +
+            "FROM (SELECT (price - :min) / :width AS bucket FROM ads WHERE price IS NOT NULL) b " +
+            "GROUP BY b.bucket", nativeQuery = true)
+    List<PriceBucketCount> countByPriceBuckets(@Param("min") int min, @Param("width") int width);
+
+    /**
+     * Первая страница полнотекстового поиска по индексу {@code ads_search_vector_idx} (только PostgreSQL).
+     * Результаты упорядочены по убыванию ранга {@code ts_rank}, затем по убыванию идентификатора.
+     */
+    @Query(value = "SELECT hits.id AS id, hits.rank AS rank FROM (" + SEARCH_HITS + ") hits " +
+            "ORDER BY hits.rank DESC, hits.id DESC LIMIT :limit", nativeQuery = true)
+    List<AdsSearchHit> searchFullText(@Param("query") String query, @Param("limit") int limit);
+
+    /**
+     * Страница полнотекстового поиска, следующая за результатом с ключом ({@code rank}, {@code id}).
+     */
+    @Query(value = "SELECT hits.id AS id, hits.rank AS rank FROM (" + SEARCH_HITS + ") hits " +
+            "WHERE hits.rank < :rank OR (hits.rank = :rank AND hits.id < :id) " +
+            "ORDER BY hits.rank DESC, hits.id DESC LIMIT :limit", nativeQuery = true)
+    List<AdsSearchHit> searchFullTextAfter(@Param("query") String query,
+                                           @Param("rank") double rank,
+                                           @Param("id") Integer id,
+                                           @Param("limit") int limit);
+
+    /**
+     * Поиск по вхождению подстроки в заголовок или описание для баз данных без полнотекстового поиска.
+     * Результаты упорядочены по убыванию идентификатора.
+     */
+    @Query("select a from ads a where (lower(a.title) like :pattern escape '\\' " +
+            "or lower(a.description) like :pattern escape '\\') and a.id < :id order by a.id desc")
+    List<Ads> searchByPattern(@Param("pattern") String pattern, @Param("id") Integer beforeId, Pageable pageable);
 }
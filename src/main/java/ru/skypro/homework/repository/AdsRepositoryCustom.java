@@ -0,0 +1,32 @@
+package ru.skypro.homework.repository;
+
+import ru.skypro.homework.dto.AdsSort;
+import ru.skypro.homework.entity.Ads;
+
+import java.util.List;
+
+/**
+ * Запросы ленты объявлений с фильтром по цене, которые строятся динамически.
+ */
+public interface AdsRepositoryCustom {
+
+    /**
+     * Страница ленты объявлений с keyset-продолжением.
+     *
+     * @param minPrice Минимальная цена включительно или null.
+     * @param maxPrice Максимальная цена включительно или null.
+     * @param sort     Порядок объявлений.
+     * @param lastKey  Значение ключа сортировки ({@code price} или {@code createdAt}) последнего объявления
+     *                 предыдущей страницы; не используется при сортировке по идентификатору.
+     * @param lastId   Идентификатор последнего объявления предыдущей страницы или null для первой страницы.
+     * @param limit    Максимальное количество объявлений.
+     * @return Объявления в заданном порядке.
+     */
+    List<Ads> findFeedPage(Integer minPrice, Integer maxPrice, AdsSort sort, Object lastKey, Integer lastId, int limit);
+
+    /**
+     * Количество объявлений с ценой в заданном диапазоне. Объявления без цены не учитываются,
+     * в том числе без ограничений диапазона, как и в ленте с сортировкой по цене.
+     */
+    long countByPriceRange(Integer minPrice, Integer maxPrice);
+}
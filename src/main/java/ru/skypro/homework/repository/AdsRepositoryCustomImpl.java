@@ -0,0 +1,85 @@
+package ru.skypro.homework.repository;
+
+import ru.skypro.homework.dto.AdsSort;
+import ru.skypro.homework.entity.Ads;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Реализация {@link AdsRepositoryCustom} на Criteria API.
+ * Фильтрация, сортировка и ограничение страницы выполняются в SQL и используют индексы
+ * {@code ads_price_id_idx} и {@code ads_created_at_id_idx}.
+ */
+public class AdsRepositoryCustomImpl implements AdsRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<Ads> findFeedPage(Integer minPrice, Integer maxPrice, AdsSort sort, Object lastKey, Integer lastId, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Ads> query = cb.createQuery(Ads.class);
+        Root<Ads> ads = query.from(Ads.class);
+        List<Predicate> predicates = priceRange(cb, ads, minPrice, maxPrice);
+        Path<Integer> id = ads.get("id");
+        switch (sort) {
+            case PRICE:
+                Path<Integer> price = ads.get("price");
+                predicates.add(cb.isNotNull(price));
+                if (lastId != null) {
+                    predicates.add(cb.or(cb.greaterThan(price, (Integer) lastKey),
+                            cb.and(cb.equal(price, lastKey), cb.greaterThan(id, lastId))));
+                }
+                query.orderBy(cb.asc(price), cb.asc(id));
+                break;
+            case NEWEST:
+                Path<LocalDateTime> createdAt = ads.get("createdAt");
+                if (lastId != null) {
+                    predicates.add(cb.or(cb.lessThan(createdAt, (LocalDateTime) lastKey),
+                            cb.and(cb.equal(createdAt, lastKey), cb.lessThan(id, lastId))));
+                }
+                query.orderBy(cb.desc(createdAt), cb.desc(id));
+                break;
+            default:
+                if (lastId != null) {
+                    predicates.add(cb.greaterThan(id, lastId));
+                }
+                query.orderBy(cb.asc(id));
+        }
+        query.select(ads).where(predicates.toArray(new Predicate[0]));
+        return entityManager.createQuery(query)
+                .setMaxResults(limit)
+                .getResultList();
+    }
+
+    @Override
+    public long countByPriceRange(Integer minPrice, Integer maxPrice) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> query = cb.createQuery(Long.class);
+        Root<Ads> ads = query.from(Ads.class);
+        List<Predicate> predicates = priceRange(cb, ads, minPrice, maxPrice);
+        predicates.add(cb.isNotNull(ads.get("price")));
+        query.select(cb.count(ads)).where(predicates.toArray(new Predicate[0]));
+        return entityManager.createQuery(query).getSingleResult();
+    }
+
+    private static List<Predicate> priceRange(CriteriaBuilder cb, Root<Ads> ads, Integer minPrice, Integer maxPrice) {
+        List<Predicate> predicates = new ArrayList<>();
+        if (minPrice != null) {
+            predicates.add(cb.greaterThanOrEqualTo(ads.get("price"), minPrice));
+        }
+        if (maxPrice != null) {
+            predicates.add(cb.lessThanOrEqualTo(ads.get("price"), maxPrice));
+        }
+        return predicates;
+    }
+}
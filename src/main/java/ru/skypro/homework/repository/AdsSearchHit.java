@@ -0,0 +1,11 @@
+package ru.skypro.homework.repository;
+
+/**
+ * Результат полнотекстового поиска: идентификатор объявления и его ранг.
+ */
+public interface AdsSearchHit {
+
+    Integer getId();
+
+    Double getRank();
+}
@@ -1,9 +1,16 @@
 package ru.skypro.homework.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.skypro.homework.dto.CommentDto;
 import ru.skypro.homework.entity.Comment;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -11,9 +18,79 @@ import java.util.Optional;
 public interface CommentRepository extends JpaRepository<Comment, Integer> {
     List<Comment> findAllByAdsId(Integer id);
 
-    void deleteByAdsIdAndId(Integer adId, Integer id);
+    /**
+     * Первая страница комментариев объявления вместе с данными авторов одним запросом,
+     * в порядке индекса {@code comments_ads_id_created_at_idx}.
+     */
+    @Query("select new ru.skypro.homework.dto.CommentDto(u.id, u.image, u.firstName, c.createdAt, c.id, c.text) " +
+            "from comments c left join c.user u where c.ads.id = :adsId order by c.createdAt, c.id")
+    List<CommentDto> findCommentDtosByAdsId(@Param("adsId") Integer adsId, Pageable pageable);
 
-    Optional<Comment> findCommentByIdAndAds_Id(Integer id, Integer adsId);
+    /**
+     * Комментарии объявления, следующие за комментарием с ключом ({@code createdAt}, {@code id}).
+     */
+    @Query("select new ru.skypro.homework.dto.CommentDto(u.id, u.image, u.firstName, c.createdAt, c.id, c.text) " +
+            "from comments c left join c.user u where c.ads.id = :adsId " +
+            "and (c.createdAt > :createdAt or (c.createdAt = :createdAt and c.id > :id)) " +
+            "order by c.createdAt, c.id")
+    List<CommentDto> findCommentDtosByAdsIdAfter(@Param("adsId") Integer adsId,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Integer id,
+                                                 Pageable pageable);
+
+    long countByAdsId(Integer adsId);
+
+    /**
+     * Удаляет комментарий объявления одним запросом {@code DELETE}, не загружая его.
+     *
+     * @return Количество удаленных комментариев.
+     */
+    @Modifying
+    @Query("delete from comments c where c.ads.id = :adsId and c.id = :id")
+    int deleteByAdsIdAndId(@Param("adsId") Integer adsId, @Param("id") Integer id);
+
+    /**
+     * Удаляет комментарии с указанными идентификаторами одним запросом {@code DELETE}.
+     *
+     * @return Количество удаленных комментариев.
+     */
+    @Modifying
+    @Query("delete from comments c where c.id in :ids")
+    int deleteByIdIn(@Param("ids") Collection<Integer> ids);
+
+    /**
+     * Удаляет все комментарии автора одним запросом {@code DELETE} по индексу {@code comments_user_id_idx}.
+     *
+     * @return Количество удаленных комментариев.
+     */
+    @Modifying
+    @Query("delete from comments c where c.user.id = :userId")
+    int deleteByUserId(@Param("userId") Integer userId);
 
-    void deleteAllByAds_Id(Integer id);
+    /**
+     * Удаляет комментарии объявления, созданные не раньше {@code since}, одним запросом {@code DELETE}
+     * по индексу {@code comments_ads_id_created_at_idx}.
+     *
+     * @return Количество удаленных комментариев.
+     */
+    @Modifying
+    @Query("delete from comments c where c.ads.id = :adsId and c.createdAt >= :since")
+    int deleteByAdsIdSince(@Param("adsId") Integer adsId, @Param("since") LocalDateTime since);
+
+    /**
+     * Удаляет все комментарии объявления одним запросом {@code DELETE}.
+     *
+     * @return Количество удаленных комментариев.
+     */
+    @Modifying
+    @Query("delete from comments c where c.ads.id = :adsId")
+    int deleteByAdsId(@Param("adsId") Integer adsId);
+
+    /**
+     * Адрес электронной почты автора комментария без загрузки комментария и пользователя.
+     */
+    @Query("select u.email from comments c join c.user u where c.id = :id")
+    Optional<String> findAuthorEmailById(@Param("id") Integer id);
+
+    Optional<Comment> findCommentByIdAndAds_Id(Integer id, Integer adsId);
 }
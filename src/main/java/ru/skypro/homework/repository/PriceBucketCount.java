@@ -0,0 +1,11 @@
+package ru.skypro.homework.repository;
+
+/**
+ * Номер интервала гистограммы цен и количество объявлений в нем.
+ */
+public interface PriceBucketCount {
+
+    Integer getBucket();
+
+    Long getTotal();
+}
@@ -0,0 +1,11 @@
+package ru.skypro.homework.repository;
+
+/**
+ * Минимальная и максимальная цена объявлений.
+ */
+public interface PriceRange {
+
+    Integer getMinPrice();
+
+    Integer getMaxPrice();
+}
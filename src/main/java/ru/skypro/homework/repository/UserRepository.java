@@ -1,12 +1,43 @@
 package ru.skypro.homework.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import ru.skypro.homework.config.HibernateCacheConfig;
 import ru.skypro.homework.entity.User;
 
+import javax.persistence.QueryHint;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface UserRepository extends JpaRepository<User,Integer> {
-    Optional<User> findByEmail(String email);
+    /**
+     * Поиск пользователя по email без учёта регистра.
+     * Условие {@code lower(email)} совпадает с выражением индекса {@code users_email_lower_uidx}.
+     * Идентификатор найденного пользователя хранится в кэше запросов (регион
+     * {@value HibernateCacheConfig#USERS_BY_EMAIL_REGION}), а сама сущность — во втором уровне кэша,
+     * поэтому повторный поиск не обращается к базе данных до изменения таблицы {@code users}.
+     */
+    @QueryHints({
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHEABLE, value = "true"),
+            @QueryHint(name = org.hibernate.annotations.QueryHints.CACHE_REGION, value = HibernateCacheConfig.USERS_BY_EMAIL_REGION)
+    })
+    @Query("select u from users u where lower(u.email) = lower(:email)")
+    Optional<User> findByEmail(@Param("email") String email);
+
+    /**
+     * Количество пользователей, ссылающихся на изображение по одному из путей {@code images}
+     * (индекс {@code users_image_idx}).
+     */
+    long countByImageIn(Collection<String> images);
+
+    /**
+     * Пути изображений из {@code images}, на которые ссылаются пользователи.
+     */
+    @Query("select distinct u.image from users u where u.image in :images")
+    List<String> findImagesIn(@Param("images") Collection<String> images);
 }
@@ -0,0 +1,103 @@
+package ru.skypro.homework.search;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import ru.skypro.homework.cache.CacheInvalidationEvent;
+import ru.skypro.homework.entity.Ads;
+import ru.skypro.homework.repository.AdsRepository;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Встроенный поисковый индекс объявлений.
+ * <p>
+ * Включается свойством {@code ads.search.in-memory.enabled}. Индекс строится при запуске приложения
+ * из {@link AdsRepository} и обновляется сервисом объявлений при их создании, изменении и удалении,
+ * а также при получении {@link CacheInvalidationEvent} об объявлениях, измененных на другом экземпляре приложения.
+ * Если индекс выключен, методы изменения ничего не делают.
+ */
+@Slf4j
+@Component
+public class AdsSearchIndex {
+
+    private static final int BATCH_SIZE = 1000;
+
+    private final AdsRepository adsRepository;
+    private final boolean enabled;
+    private final InvertedIndex index = new InvertedIndex();
+
+    public AdsSearchIndex(AdsRepository adsRepository,
+                          @Value("${ads.search.in-memory.enabled:false}") boolean enabled) {
+        this.adsRepository = adsRepository;
+        this.enabled = enabled;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Загружает все объявления в индекс страницами по {@value #BATCH_SIZE} записей.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void build() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        int lastId = 0;
+        List<Ads> batch;
+        do {
+            batch = adsRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, BATCH_SIZE));
+            batch.forEach(this::index);
+            if (!batch.isEmpty()) {
+                lastId = batch.get(batch.size() - 1).getId();
+            }
+        } while (batch.size() == BATCH_SIZE);
+        log.info("Built ads search index with {} ads in {} ms", index.size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    public void index(Ads ads) {
+        if (enabled) {
+            index.put(ads.getId(), ads.getTitle(), ads.getDescription());
+        }
+    }
+
+    public void remove(Integer id) {
+        if (enabled) {
+            index.remove(id);
+        }
+    }
+
+    /**
+     * Перечитывает объявления, измененные на другом экземпляре приложения, одним запросом
+     * {@link AdsRepository#findAllById(Iterable)}. Запрос читает строки из базы данных, а не из второго уровня
+     * кэша Hibernate. Объявления, которых больше нет, удаляются из индекса.
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        if (!enabled || event.getType() != CacheInvalidationEvent.Type.ADS) {
+            return;
+        }
+        Set<Integer> ids = event.getKeys().stream()
+                .map(Integer::valueOf)
+                .collect(Collectors.toSet());
+        Set<Integer> missing = new HashSet<>(ids);
+        for (Ads ads : adsRepository.findAllById(ids)) {
+            index(ads);
+            missing.remove(ads.getId());
+        }
+        missing.forEach(this::remove);
+    }
+
+    public List<SearchHit> search(String query, int limit) {
+        return enabled ? index.search(query, limit) : List.of();
+    }
+}
@@ -0,0 +1,247 @@
+package ru.skypro.homework.search;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Инвертированный индекс объявлений в памяти.
+ * <p>
+ * Для каждого терма хранится {@link PostingList} с идентификаторами объявлений, термы упорядочены
+ * в {@link TreeMap}, поэтому последний терм запроса ищется по префиксу (поиск по мере набора).
+ * Объявление подходит под запрос, если содержит все его термы; результаты ранжируются по BM25.
+ * Вхождения в заголовок учитываются с весом {@value #TITLE_WEIGHT}.
+ * Чтение и изменение индекса разделены {@link ReadWriteLock}.
+ */
+public class InvertedIndex {
+
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+    private static final int TITLE_WEIGHT = 2;
+    private static final int MAX_PREFIX_EXPANSIONS = 64;
+    private static final Comparator<SearchHit> BY_RELEVANCE = Comparator.comparingDouble(SearchHit::getScore)
+            .thenComparingInt(SearchHit::getId);
+
+    private final NavigableMap<String, PostingList> postings = new TreeMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private long totalLength;
+
+    /**
+     * Добавляет объявление в индекс или заменяет ранее проиндексированный текст.
+     */
+    public void put(int id, String title, String description) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        for (String token : Tokenizer.tokenize(title)) {
+            frequencies.merge(token, TITLE_WEIGHT, Integer::sum);
+        }
+        for (String token : Tokenizer.tokenize(description)) {
+            frequencies.merge(token, 1, Integer::sum);
+        }
+        int length = frequencies.values().stream().mapToInt(Integer::intValue).sum();
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+            frequencies.forEach((term, frequency) -> postings.computeIfAbsent(term, t -> new PostingList()).put(id, frequency, length));
+            documents.put(id, new Document(frequencies.keySet().toArray(new String[0]), length));
+            totalLength += length;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(int id) {
+        lock.writeLock().lock();
+        try {
+            removeDocument(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documents.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Ищет объявления, содержащие все термы запроса. Если запрос не заканчивается разделителем,
+     * последний терм считается префиксом.
+     *
+     * @param query Строка поиска.
+     * @param limit Максимальное количество результатов.
+     * @return Найденные объявления в порядке убывания релевантности.
+     */
+    public List<SearchHit> search(String query, int limit) {
+        List<String> terms = Tokenizer.tokenize(query);
+        if (terms.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        boolean prefixLast = Character.isLetterOrDigit(query.charAt(query.length() - 1));
+        lock.readLock().lock();
+        try {
+            if (documents.isEmpty()) {
+                return List.of();
+            }
+            double averageLength = (double) totalLength / documents.size();
+            Scores scores = null;
+            for (int i = 0; i < terms.size(); i++) {
+                boolean prefix = prefixLast && i == terms.size() - 1;
+                Scores termScores = score(lookup(terms.get(i), prefix), averageLength);
+                scores = scores == null ? termScores : scores.intersect(termScores);
+                if (scores.size == 0) {
+                    return List.of();
+                }
+            }
+            return scores.top(limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<PostingList> lookup(String term, boolean prefix) {
+        if (!prefix) {
+            PostingList list = postings.get(term);
+            return list == null ? List.of() : List.of(list);
+        }
+        List<PostingList> lists = new ArrayList<>();
+        for (PostingList list : postings.subMap(term, true, term + Character.MAX_VALUE, false).values()) {
+            lists.add(list);
+            if (lists.size() == MAX_PREFIX_EXPANSIONS) {
+                break;
+            }
+        }
+        return lists;
+    }
+
+    /**
+     * Считает вклад терма в оценку BM25 для всех содержащих его объявлений.
+     * Списки вхождений нескольких термов (при поиске по префиксу) объединяются слиянием
+     * по возрастанию идентификатора, оценки одного объявления суммируются.
+     */
+    private Scores score(List<PostingList> lists, double averageLength) {
+        int total = 0;
+        for (PostingList list : lists) {
+            total += list.size();
+        }
+        Scores scores = new Scores(total);
+        int count = documents.size();
+        int[] positions = new int[lists.size()];
+        double[] idfs = new double[lists.size()];
+        for (int i = 0; i < lists.size(); i++) {
+            int df = lists.get(i).size();
+            idfs[i] = Math.log(1 + (count - df + 0.5) / (df + 0.5));
+        }
+        while (true) {
+            int next = -1;
+            int nextId = Integer.MAX_VALUE;
+            for (int i = 0; i < lists.size(); i++) {
+                if (positions[i] < lists.get(i).size() && lists.get(i).id(positions[i]) < nextId) {
+                    next = i;
+                    nextId = lists.get(i).id(positions[i]);
+                }
+            }
+            if (next < 0) {
+                return scores;
+            }
+            PostingList list = lists.get(next);
+            int position = positions[next]++;
+            int frequency = list.frequency(position);
+            double norm = K1 * (1 - B + B * list.length(position) / averageLength);
+            scores.add(nextId, idfs[next] * frequency * (K1 + 1) / (frequency + norm));
+        }
+    }
+
+    private void removeDocument(int id) {
+        Document document = documents.remove(id);
+        if (document == null) {
+            return;
+        }
+        for (String term : document.terms) {
+            PostingList list = postings.get(term);
+            list.remove(id);
+            if (list.size() == 0) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= document.length;
+    }
+
+    /**
+     * Оценки объявлений, упорядоченные по возрастанию идентификатора.
+     */
+    private static final class Scores {
+        private final int[] ids;
+        private final double[] values;
+        private int size;
+
+        private Scores(int capacity) {
+            ids = new int[capacity];
+            values = new double[capacity];
+        }
+
+        private void add(int id, double value) {
+            if (size > 0 && ids[size - 1] == id) {
+                values[size - 1] += value;
+            } else {
+                ids[size] = id;
+                values[size++] = value;
+            }
+        }
+
+        /**
+         * Оставляет объявления, которые есть в обоих наборах, и суммирует их оценки.
+         */
+        private Scores intersect(Scores other) {
+            Scores result = new Scores(Math.min(size, other.size));
+            int i = 0;
+            int j = 0;
+            while (i < size && j < other.size) {
+                if (ids[i] < other.ids[j]) {
+                    i++;
+                } else if (ids[i] > other.ids[j]) {
+                    j++;
+                } else {
+                    result.add(ids[i], values[i++] + other.values[j++]);
+                }
+            }
+            return result;
+        }
+
+        private List<SearchHit> top(int limit) {
+            PriorityQueue<SearchHit> queue = new PriorityQueue<>(limit + 1, BY_RELEVANCE);
+            for (int i = 0; i < size; i++) {
+                if (queue.size() < limit || values[i] > queue.peek().getScore()) {
+                    queue.add(new SearchHit(ids[i], values[i]));
+                    if (queue.size() > limit) {
+                        queue.poll();
+                    }
+                }
+            }
+            List<SearchHit> hits = new ArrayList<>(queue);
+            hits.sort(BY_RELEVANCE.reversed());
+            return hits;
+        }
+    }
+
+    private static final class Document {
+        private final String[] terms;
+        private final int length;
+
+        private Document(String[] terms, int length) {
+            this.terms = terms;
+            this.length = length;
+        }
+    }
+}
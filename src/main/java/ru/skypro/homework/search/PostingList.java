@@ -0,0 +1,68 @@
+package ru.skypro.homework.search;
+
+import java.util.Arrays;
+
+/**
+ * Список вхождений терма в примитивных массивах: идентификаторы объявлений в порядке возрастания,
+ * частота терма в объявлении и длина объявления в термах (для нормализации BM25).
+ */
+final class PostingList {
+
+    private int[] ids = new int[4];
+    private int[] frequencies = new int[4];
+    private int[] lengths = new int[4];
+    private int size;
+
+    /**
+     * Добавляет или заменяет вхождение. Идентификаторы новых объявлений обычно больше
+     * уже проиндексированных, поэтому чаще всего элемент добавляется в конец.
+     */
+    void put(int id, int frequency, int length) {
+        int index = size == 0 || ids[size - 1] < id ? -(size + 1) : Arrays.binarySearch(ids, 0, size, id);
+        if (index >= 0) {
+            frequencies[index] = frequency;
+            lengths[index] = length;
+            return;
+        }
+        int insertAt = -(index + 1);
+        if (size == ids.length) {
+            ids = Arrays.copyOf(ids, size * 2);
+            frequencies = Arrays.copyOf(frequencies, size * 2);
+            lengths = Arrays.copyOf(lengths, size * 2);
+        }
+        System.arraycopy(ids, insertAt, ids, insertAt + 1, size - insertAt);
+        System.arraycopy(frequencies, insertAt, frequencies, insertAt + 1, size - insertAt);
+        System.arraycopy(lengths, insertAt, lengths, insertAt + 1, size - insertAt);
+        ids[insertAt] = id;
+        frequencies[insertAt] = frequency;
+        lengths[insertAt] = length;
+        size++;
+    }
+
+    void remove(int id) {
+        int index = Arrays.binarySearch(ids, 0, size, id);
+        if (index < 0) {
+            return;
+        }
+        System.arraycopy(ids, index + 1, ids, index, size - index - 1);
+        System.arraycopy(frequencies, index + 1, frequencies, index, size - index - 1);
+        System.arraycopy(lengths, index + 1, lengths, index, size - index - 1);
+        size--;
+    }
+
+    int size() {
+        return size;
+    }
+
+    int id(int index) {
+        return ids[index];
+    }
+
+    int frequency(int index) {
+        return frequencies[index];
+    }
+
+    int length(int index) {
+        return lengths[index];
+    }
+}
@@ -0,0 +1,12 @@
+package ru.skypro.homework.search;
+
+import lombok.Value;
+
+/**
+ * Найденное объявление и его релевантность.
+ */
+@Value
+public class SearchHit {
+    int id;
+    double score;
+}
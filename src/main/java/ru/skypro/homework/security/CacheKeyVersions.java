@@ -0,0 +1,68 @@
+package ru.skypro.homework.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Версии ключей кэша, защищающие от записи значений, прочитанных до удаления ключа.
+ * <p>
+ * Перед чтением значения из базы данных запоминается {@link #current(String)}; прочитанное значение
+ * записывается через {@link #runIfCurrent(String, long, Runnable)} только если ключ с тех пор не удалялся.
+ * Проверка версии и запись выполняются атомарно относительно {@link #invalidate(String, Runnable)}.
+ * Версии уникальны в пределах экземпляра, поэтому версия, вытесненная из-за размера или срока хранения,
+ * не совпадет с новой, и запись просто пропускается.
+ */
+class CacheKeyVersions {
+
+    private final AtomicLong sequence = new AtomicLong();
+    private final Cache<String, Long> versions;
+
+    CacheKeyVersions(long maxSize, Duration ttl) {
+        this.versions = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterAccess(ttl)
+                .build();
+    }
+
+    long current(String key) {
+        return versions.get(key, k -> sequence.incrementAndGet());
+    }
+
+    /**
+     * Выполняет запись в кэш, если версия ключа не изменилась.
+     *
+     * @return false, если ключ был удален после получения версии.
+     */
+    boolean runIfCurrent(String key, long version, Runnable write) {
+        AtomicBoolean written = new AtomicBoolean();
+        versions.asMap().computeIfPresent(key, (k, current) -> {
+            if (current == version) {
+                write.run();
+                written.set(true);
+            }
+            return current;
+        });
+        return written.get();
+    }
+
+    /**
+     * Меняет версию ключа и удаляет его значения из кэша.
+     */
+    void invalidate(String key, Runnable removal) {
+        versions.asMap().compute(key, (k, current) -> {
+            removal.run();
+            return sequence.incrementAndGet();
+        });
+    }
+
+    /**
+     * Делает недействительными все выданные версии. Значения кэша нужно удалить после этого вызова.
+     */
+    void invalidateAll() {
+        versions.invalidateAll();
+    }
+}
@@ -0,0 +1,54 @@
+package ru.skypro.homework.security;
+
+import org.springframework.security.authentication.AuthenticationProvider;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Провайдер аутентификации по логину и паролю, который проверяет пароль через BCrypt
+ * только при первом запросе, а затем берет результат из {@link CredentialsCache}.
+ * Версия учетных данных запоминается до проверки, поэтому результат проверки, которая шла одновременно
+ * со сменой пароля, в кэш не попадает.
+ */
+@Component
+public class CachingAuthenticationProvider implements AuthenticationProvider {
+
+    private final DaoAuthenticationProvider delegate = new DaoAuthenticationProvider();
+    private final CredentialsCache credentialsCache;
+
+    public CachingAuthenticationProvider(UserDetailsService userDetailsService,
+                                         PasswordEncoder passwordEncoder,
+                                         CredentialsCache credentialsCache) {
+        this.delegate.setUserDetailsService(userDetailsService);
+        this.delegate.setPasswordEncoder(passwordEncoder);
+        this.credentialsCache = credentialsCache;
+    }
+
+    @Override
+    public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+        if (authentication.getCredentials() == null) {
+            return delegate.authenticate(authentication);
+        }
+        String email = authentication.getName();
+        String password = authentication.getCredentials().toString();
+        UserDetails userDetails = credentialsCache.get(email, password);
+        if (userDetails == null) {
+            long version = credentialsCache.version(email);
+            Authentication result = delegate.authenticate(authentication);
+            userDetails = ((MyUserDetails) result.getPrincipal()).withoutPassword();
+            credentialsCache.put(email, password, userDetails, version);
+        }
+        return new UsernamePasswordAuthenticationToken(userDetails, null, userDetails.getAuthorities());
+    }
+
+    @Override
+    public boolean supports(Class<?> authentication) {
+        return UsernamePasswordAuthenticationToken.class.isAssignableFrom(authentication);
+    }
+}
@@ -0,0 +1,124 @@
+package ru.skypro.homework.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import ru.skypro.homework.cache.CacheInvalidationEvent;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Locale;
+
+/**
+ * Кэш успешно проверенных учетных данных.
+ * <p>
+ * Ключ записи — HMAC-SHA256 от пары (email, пароль) на случайном ключе, который создается
+ * при запуске приложения и нигде не сохраняется, поэтому пароли не хранятся в памяти
+ * ни в открытом виде, ни в виде пригодного для перебора хэша. Повторный запрос с теми же
+ * учетными данными не выполняет ни запрос к базе данных, ни проверку BCrypt.
+ * <p>
+ * Проверка, начатая до {@link #invalidate(String)}, не запишет в кэш прежний пароль: запись выполняется
+ * только если версия пользователя, полученная через {@link #version(String)} до проверки, не изменилась.
+ */
+@Component
+public class CredentialsCache {
+
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private final Cache<String, UserDetails> cache;
+    private final CacheKeyVersions versions;
+    private final ThreadLocal<Mac> mac;
+
+    public CredentialsCache(MeterRegistry meterRegistry,
+                            @Value("${security.credentials-cache.max-size:10000}") long maxSize,
+                            @Value("${security.credentials-cache.ttl:PT5M}") Duration ttl) {
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.versions = new CacheKeyVersions(maxSize, ttl);
+        byte[] secret = new byte[32];
+        new SecureRandom().nextBytes(secret);
+        SecretKeySpec key = new SecretKeySpec(secret, ALGORITHM);
+        this.mac = ThreadLocal.withInitial(() -> {
+            try {
+                Mac instance = Mac.getInstance(ALGORITHM);
+                instance.init(key);
+                return instance;
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        });
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "credentials");
+    }
+
+    /**
+     * Возвращает данные пользователя, если пара (email, пароль) уже была успешно проверена.
+     *
+     * @return Данные пользователя или null, если записи нет.
+     */
+    public UserDetails get(String email, String password) {
+        return cache.getIfPresent(key(email, password));
+    }
+
+    /**
+     * Версия учетных данных пользователя, которую нужно получить до проверки пароля
+     * и передать в {@link #put(String, String, UserDetails, long)}.
+     */
+    public long version(String email) {
+        return versions.current(email.toLowerCase(Locale.ROOT));
+    }
+
+    /**
+     * Сохраняет проверенные учетные данные, если после получения версии они не удалялись.
+     *
+     * @param version Версия, полученная через {@link #version(String)} до проверки пароля.
+     */
+    public void put(String email, String password, UserDetails userDetails, long version) {
+        String key = key(email, password);
+        versions.runIfCurrent(email.toLowerCase(Locale.ROOT), version, () -> cache.put(key, userDetails));
+    }
+
+    /**
+     * Удаляет все проверенные учетные данные пользователя, например после смены пароля.
+     *
+     * @param email Адрес электронной почты пользователя.
+     */
+    public void invalidate(String email) {
+        versions.invalidate(email.toLowerCase(Locale.ROOT), () -> cache.asMap().values()
+                .removeIf(userDetails -> userDetails.getUsername().equalsIgnoreCase(email)));
+    }
+
+    /**
+     * Удаляет учетные данные пользователей, измененных на другом экземпляре приложения.
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        switch (event.getType()) {
+            case USER:
+                event.getKeys().forEach(this::invalidate);
+                break;
+            case ALL:
+                versions.invalidateAll();
+                cache.invalidateAll();
+                break;
+            default:
+        }
+    }
+
+    private String key(String email, String password) {
+        byte[] hash = mac.get().doFinal((email + '\u0000' + password).getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(hash);
+    }
+}
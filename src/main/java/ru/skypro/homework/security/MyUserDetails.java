@@ -1,49 +1,78 @@
 package ru.skypro.homework.security;
 
-import org.springframework.context.annotation.ScopedProxyMode;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
-import org.springframework.stereotype.Component;
-import org.springframework.web.context.annotation.RequestScope;
 import ru.skypro.homework.dto.MyUserDetailsDto;
+import ru.skypro.homework.dto.Role;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Optional;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
 
-@Component
-@RequestScope(proxyMode = ScopedProxyMode.TARGET_CLASS)
-public class MyUserDetails implements UserDetails {
+/**
+ * Неизменяемые данные аутентифицированного пользователя.
+ * <p>
+ * Объект создается один раз из {@link MyUserDetailsDto} и может кэшироваться и использоваться
+ * за пределами потока запроса. Наборы ролей создаются заранее для каждой {@link Role}.
+ */
+public final class MyUserDetails implements UserDetails {
 
-    private MyUserDetailsDto myUserDetailsDto;
+    private static final Map<Role, Set<GrantedAuthority>> AUTHORITIES = new EnumMap<>(Role.class);
 
-    public void setMyUserDetailsDto(MyUserDetailsDto myUserDetailsDto) {
-        this.myUserDetailsDto = myUserDetailsDto;
+    static {
+        for (Role role : Role.values()) {
+            AUTHORITIES.put(role, Collections.singleton(new SimpleGrantedAuthority("ROLE_" + role)));
+        }
+    }
+
+    private final Integer id;
+    private final String email;
+    private final String password;
+    private final Role role;
+
+    public MyUserDetails(MyUserDetailsDto myUserDetailsDto) {
+        this(myUserDetailsDto.getId(), myUserDetailsDto.getEmail(),
+                myUserDetailsDto.getPassword(), myUserDetailsDto.getRole());
+    }
+
+    public MyUserDetails(Integer id, String email, String password, Role role) {
+        this.id = id;
+        this.email = email;
+        this.password = password;
+        this.role = role;
+    }
+
+    /**
+     * Возвращает копию без хэша пароля, пригодную для хранения в аутентификации.
+     */
+    public MyUserDetails withoutPassword() {
+        return password == null ? this : new MyUserDetails(id, email, null, role);
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public Role getRole() {
+        return role;
     }
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return Optional.ofNullable(myUserDetailsDto)
-                .map(MyUserDetailsDto::getRole)
-                .map(role -> "ROLE_" + role)
-                .map(SimpleGrantedAuthority::new)
-                .map(Collections::singleton)
-                .orElse(Collections.emptySet());
+        return role == null ? Collections.emptySet() : AUTHORITIES.get(role);
     }
 
     @Override
     public String getPassword() {
-        return Optional.ofNullable(myUserDetailsDto)
-                .map(MyUserDetailsDto::getPassword)
-                .orElse(null);
+        return password;
     }
 
     @Override
     public String getUsername() {
-        return Optional.ofNullable(myUserDetailsDto)
-                .map(MyUserDetailsDto::getEmail)
-                .orElse(null);
+        return email;
     }
 
     @Override
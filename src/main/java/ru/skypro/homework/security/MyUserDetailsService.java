@@ -1,29 +1,90 @@
 package ru.skypro.homework.security;
 
-import lombok.RequiredArgsConstructor;
-import org.springframework.security.core.userdetails.UserDetails;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.core.userdetails.UserDetailsService;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
-import ru.skypro.homework.dto.MyUserDetailsDto;
+import ru.skypro.homework.cache.CacheInvalidationEvent;
 import ru.skypro.homework.exception.UserWithEmailNotFoundException;
 import ru.skypro.homework.mapper.UserMapper;
 import ru.skypro.homework.repository.UserRepository;
 
+import java.time.Duration;
+
+/**
+ * Загружает данные пользователя для аутентификации.
+ * Загруженные {@link MyUserDetails} хранятся в ограниченном кэше, из которого
+ * удаляются при изменении пользователя или его пароля через {@link #evict(String)}.
+ * Данные, прочитанные до удаления, в кэш не записываются (см. {@link CacheKeyVersions}).
+ */
 @Service
-@RequiredArgsConstructor
 public class MyUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
-    private final MyUserDetails myUserDetails;
     private final UserMapper userMapper;
+    private final Cache<String, MyUserDetails> cache;
+    private final CacheKeyVersions versions;
+
+    public MyUserDetailsService(UserRepository userRepository,
+                                UserMapper userMapper,
+                                MeterRegistry meterRegistry,
+                                @Value("${security.user-details-cache.max-size:10000}") long maxSize,
+                                @Value("${security.user-details-cache.ttl:PT10M}") Duration ttl) {
+        this.userRepository = userRepository;
+        this.userMapper = userMapper;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        this.versions = new CacheKeyVersions(maxSize, ttl);
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "userDetails");
+    }
 
     @Override
-    public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
-        MyUserDetailsDto myUserDetailsDto = userRepository.findByEmail(email)
-                .map(u -> userMapper.toMyUserDetailsDto(u))
-                .orElseThrow(() -> new UserWithEmailNotFoundException(email));
-        myUserDetails.setMyUserDetailsDto(myUserDetailsDto);
-        return myUserDetails;
+    public MyUserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
+        String key = email.toLowerCase();
+        MyUserDetails cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+        long version = versions.current(key);
+        MyUserDetails userDetails = userRepository.findByEmail(key)
+                .map(u -> new MyUserDetails(userMapper.toMyUserDetailsDto(u)))
+                .orElseThrow(() -> new UserWithEmailNotFoundException(key));
+        versions.runIfCurrent(key, version, () -> cache.put(key, userDetails));
+        return userDetails;
+    }
+
+    /**
+     * Удаляет данные пользователя из кэша.
+     *
+     * @param email Адрес электронной почты пользователя.
+     */
+    public void evict(String email) {
+        String key = email.toLowerCase();
+        versions.invalidate(key, () -> cache.invalidate(key));
+    }
+
+    /**
+     * Удаляет данные пользователей, измененных на другом экземпляре приложения.
+     */
+    @EventListener
+    public void onInvalidation(CacheInvalidationEvent event) {
+        switch (event.getType()) {
+            case USER:
+                event.getKeys().forEach(this::evict);
+                break;
+            case ALL:
+                versions.invalidateAll();
+                cache.invalidateAll();
+                break;
+            default:
+        }
     }
 }
@@ -0,0 +1,15 @@
+package ru.skypro.homework.security;
+
+import lombok.Value;
+import ru.skypro.homework.dto.Role;
+
+/**
+ * Проверенное содержимое токена, выданного {@link TokenService}.
+ */
+@Value
+public class TokenClaims {
+
+    String subject;
+    Role role;
+    String fingerprint;
+}
@@ -0,0 +1,172 @@
+package ru.skypro.homework.security;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+import ru.skypro.homework.dto.AuthTokens;
+import ru.skypro.homework.dto.Role;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Выпуск и проверка токенов доступа в формате JWT с подписью HMAC-SHA256.
+ * <p>
+ * Токен доступа короткоживущий и проверяется только по подписи и сроку действия,
+ * без обращения к базе данных. Токен обновления содержит отпечаток хэша пароля пользователя,
+ * поэтому после смены пароля обновить по нему токены уже нельзя.
+ */
+@Slf4j
+@Service
+public class TokenService {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final String HEADER = encode("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+    private static final String ACCESS = "access";
+    private static final String REFRESH = "refresh";
+
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec key;
+    private final Duration accessTtl;
+    private final Duration refreshTtl;
+
+    public TokenService(ObjectMapper objectMapper,
+                        @Value("${security.token.secret:}") String secret,
+                        @Value("${security.token.access-ttl:PT15M}") Duration accessTtl,
+                        @Value("${security.token.refresh-ttl:P14D}") Duration refreshTtl) {
+        this.objectMapper = objectMapper;
+        this.accessTtl = accessTtl;
+        this.refreshTtl = refreshTtl;
+        byte[] secretBytes;
+        if (StringUtils.hasText(secret)) {
+            secretBytes = secret.getBytes(StandardCharsets.UTF_8);
+        } else {
+            log.warn("security.token.secret is not set, tokens will not survive a restart");
+            secretBytes = new byte[32];
+            new SecureRandom().nextBytes(secretBytes);
+        }
+        this.key = new SecretKeySpec(secretBytes, ALGORITHM);
+    }
+
+    /**
+     * Выпускает пару токенов для пользователя.
+     *
+     * @param email        Адрес электронной почты пользователя.
+     * @param role         Роль пользователя.
+     * @param passwordHash Текущий хэш пароля пользователя, от которого вычисляется отпечаток токена обновления.
+     * @return Объект {@link AuthTokens} с токеном доступа и токеном обновления.
+     */
+    public AuthTokens issueTokens(String email, Role role, String passwordHash) {
+        Instant now = Instant.now();
+        Map<String, Object> access = claims(email, ACCESS, now, accessTtl);
+        access.put("role", role.name());
+        Map<String, Object> refresh = claims(email, REFRESH, now, refreshTtl);
+        refresh.put("fp", fingerprint(passwordHash));
+
+        AuthTokens tokens = new AuthTokens();
+        tokens.setAccessToken(sign(access));
+        tokens.setRefreshToken(sign(refresh));
+        tokens.setTokenType("Bearer");
+        tokens.setExpiresIn(accessTtl.toSeconds());
+        return tokens;
+    }
+
+    /**
+     * Проверяет токен доступа.
+     *
+     * @return Содержимое токена или {@link Optional#empty()}, если подпись неверна, срок действия истек
+     * или это не токен доступа.
+     */
+    public Optional<TokenClaims> parseAccessToken(String token) {
+        return verify(token, ACCESS)
+                .map(claims -> new TokenClaims((String) claims.get("sub"), Role.valueOf((String) claims.get("role")), null));
+    }
+
+    /**
+     * Проверяет токен обновления.
+     *
+     * @return Содержимое токена или {@link Optional#empty()}, если подпись неверна, срок действия истек
+     * или это не токен обновления.
+     */
+    public Optional<TokenClaims> parseRefreshToken(String token) {
+        return verify(token, REFRESH)
+                .map(claims -> new TokenClaims((String) claims.get("sub"), null, (String) claims.get("fp")));
+    }
+
+    /**
+     * Вычисляет отпечаток хэша пароля для сравнения с отпечатком из токена обновления.
+     */
+    public String fingerprint(String passwordHash) {
+        return encode(mac().doFinal(passwordHash.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private Map<String, Object> claims(String email, String type, Instant now, Duration ttl) {
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", email);
+        claims.put("typ", type);
+        claims.put("iat", now.getEpochSecond());
+        claims.put("exp", now.plus(ttl).getEpochSecond());
+        return claims;
+    }
+
+    private String sign(Map<String, Object> claims) {
+        try {
+            String unsigned = HEADER + "." + encode(objectMapper.writeValueAsBytes(claims));
+            return unsigned + "." + encode(mac().doFinal(unsigned.getBytes(StandardCharsets.US_ASCII)));
+        } catch (IOException e) {
+            throw new IllegalStateException("Error writing token claims", e);
+        }
+    }
+
+    private Optional<Map<String, Object>> verify(String token, String expectedType) {
+        String[] parts = token.split("\\.");
+        if (parts.length != 3 || !HEADER.equals(parts[0])) {
+            return Optional.empty();
+        }
+        try {
+            byte[] expected = mac().doFinal((parts[0] + "." + parts[1]).getBytes(StandardCharsets.US_ASCII));
+            if (!MessageDigest.isEqual(expected, Base64.getUrlDecoder().decode(parts[2]))) {
+                return Optional.empty();
+            }
+            Map<String, Object> claims = objectMapper.readValue(Base64.getUrlDecoder().decode(parts[1]),
+                    new TypeReference<Map<String, Object>>() {
+                    });
+            if (!expectedType.equals(claims.get("typ"))
+                    || ((Number) claims.get("exp")).longValue() <= Instant.now().getEpochSecond()) {
+                return Optional.empty();
+            }
+            return Optional.of(claims);
+        } catch (IllegalArgumentException | IOException | ClassCastException | NullPointerException e) {
+            log.debug("Malformed token: {}", e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private Mac mac() {
+        try {
+            Mac mac = Mac.getInstance(ALGORITHM);
+            mac.init(key);
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    private static String encode(byte[] bytes) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+}
@@ -0,0 +1,59 @@
+package ru.skypro.homework.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.skypro.homework.repository.AdsRepository;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Кэшированный счетчик объявлений.
+ * <p>
+ * Точное значение {@link AdsRepository#count()} перечитывается не чаще одного раза
+ * за {@code ads.count.refresh-interval}, между перечитываниями счетчик
+ * корректируется при добавлении и удалении объявлений.
+ */
+@Component
+@RequiredArgsConstructor
+public class AdsCounter {
+
+    private final AdsRepository adsRepository;
+    private final AtomicLong count = new AtomicLong();
+
+    @Value("${ads.count.refresh-interval:PT1M}")
+    private Duration refreshInterval;
+
+    private volatile long loadedAt;
+    private volatile boolean loaded;
+
+    public long get() {
+        if (isStale()) {
+            synchronized (this) {
+                if (isStale()) {
+                    count.set(adsRepository.count());
+                    loadedAt = System.nanoTime();
+                    loaded = true;
+                }
+            }
+        }
+        return count.get();
+    }
+
+    public void increment() {
+        count.incrementAndGet();
+    }
+
+    public void add(long delta) {
+        count.addAndGet(delta);
+    }
+
+    public void decrement() {
+        count.decrementAndGet();
+    }
+
+    private boolean isStale() {
+        return !loaded || System.nanoTime() - loadedAt > refreshInterval.toNanos();
+    }
+}
@@ -0,0 +1,12 @@
+package ru.skypro.homework.service;
+
+import ru.skypro.homework.dto.BulkFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+public interface AdsImportService {
+
+    void importAds(InputStream inputStream, BulkFormat format, String email, OutputStream outputStream) throws IOException;
+}
@@ -1,35 +1,54 @@
 package ru.skypro.homework.service;
 
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
 import ru.skypro.homework.dto.*;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
 
 public interface AdsService {
 
-    ResponseWrapperAds getAllAds();
+    ResponseWrapperAds getAllAds(Integer minPrice, Integer maxPrice, AdsSort sort, String cursor, int size);
+
+    void exportAds(OutputStream outputStream) throws IOException;
+
+    ResponseWrapperAds searchAds(String query, String cursor, int size);
+
+    ResponseWrapperAds suggestAds(String query, int size);
 
     ResponseWrapperAds getAdsMe(String email);
 
     AdsDto addAd(CreateAds createAds, String email, MultipartFile image);
 
-    ResponseWrapperComment getComments(Integer id);
+    ResponseWrapperComment getComments(Integer id, String cursor, int size);
 
     CommentDto addComment(Integer id, CreateComment createComment, String email);
 
     FullAds getAds(Integer id);
 
+    byte[] getAdsJson(Integer id);
+
     void removeAd(Integer id);
 
     AdsDto updateAds(CreateAds createAds, Integer id);
 
     void deleteComment(Integer adId, Integer id);
 
+    BulkDeleteResult deleteComments(List<Integer> ids);
+
+    BulkDeleteResult deleteCommentsByAuthor(Integer authorId);
+
+    BulkDeleteResult deleteCommentsByAds(Integer adId, LocalDateTime since);
+
     CommentDto updateComment(Integer adId, Integer id, CreateComment createComment);
 
     void updateAdsImage(Integer id, MultipartFile image);
 
-    byte[] getImage(String name) throws IOException;
+    Optional<Resource> getImage(String name, ImageSize size);
 
     CommentDto getCommentDto(Integer adId,Integer id);
 }
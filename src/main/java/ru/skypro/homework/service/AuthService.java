@@ -1,10 +1,15 @@
 package ru.skypro.homework.service;
 
+import ru.skypro.homework.dto.AuthTokens;
 import ru.skypro.homework.dto.Register;
 import ru.skypro.homework.dto.Role;
 
+import java.util.Optional;
+
 public interface AuthService {
-    boolean login(String userName, String password);
+    Optional<AuthTokens> login(String userName, String password);
+
+    Optional<AuthTokens> refresh(String refreshToken);
 
     boolean register(Register register, Role role);
 }
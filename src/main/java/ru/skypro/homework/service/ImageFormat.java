@@ -0,0 +1,55 @@
+package ru.skypro.homework.service;
+
+import java.nio.ByteBuffer;
+import java.util.Optional;
+
+/**
+ * Форматы изображений, которые принимаются при загрузке.
+ * Формат определяется по сигнатуре в начале файла, а не по имени файла или заголовку {@code Content-Type}.
+ * Значение -1 в сигнатуре соответствует любому байту.
+ */
+enum ImageFormat {
+    JPEG("jpg", 0xFF, 0xD8, 0xFF),
+    PNG("png", 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'),
+    GIF("gif", 'G', 'I', 'F', '8'),
+    WEBP("webp", 'R', 'I', 'F', 'F', -1, -1, -1, -1, 'W', 'E', 'B', 'P'),
+    BMP("bmp", 'B', 'M');
+
+    private final String extension;
+    private final int[] signature;
+
+    ImageFormat(String extension, int... signature) {
+        this.extension = extension;
+        this.signature = signature;
+    }
+
+    String getExtension() {
+        return extension;
+    }
+
+    /**
+     * Определяет формат по первым байтам файла.
+     *
+     * @param head Начало файла от позиции до лимита буфера; позиция буфера не изменяется.
+     */
+    static Optional<ImageFormat> sniff(ByteBuffer head) {
+        for (ImageFormat format : values()) {
+            if (format.matches(head)) {
+                return Optional.of(format);
+            }
+        }
+        return Optional.empty();
+    }
+
+    private boolean matches(ByteBuffer head) {
+        if (head.remaining() < signature.length) {
+            return false;
+        }
+        for (int i = 0; i < signature.length; i++) {
+            if (signature[i] >= 0 && (head.get(head.position() + i) & 0xFF) != signature[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,225 @@
+package ru.skypro.homework.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import ru.skypro.homework.cache.ImageCache;
+import ru.skypro.homework.repository.AdsRepository;
+import ru.skypro.homework.repository.UserRepository;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Удаляет файлы изображений, на которые не ссылается ни одно объявление и ни один пользователь.
+ * <p>
+ * Такие файлы остаются, если транзакция откатилась после {@link ImageService#saveImage} или обновление
+ * изображения прервалось. Раз в {@code image.gc.interval} фоновый поток обходит каталог изображений,
+ * не загружая список файлов в память, и проверяет имена файлов старше {@code image.gc.grace-period}
+ * пакетами по {@code image.gc.batch-size} одним запросом к {@code ads.image} и одним к {@code users.image}.
+ * Между пакетами выдерживается пауза {@code image.gc.pause}, чтобы обход не отнимал дисковый ввод-вывод
+ * у запросов. Уменьшенные копии удаляются вместе с оригиналом, временные файлы незавершенных загрузок —
+ * по истечении того же срока. Объем освобожденного места публикуется в метрике {@code images.gc.reclaimed}.
+ * <p>
+ * Файлы моложе {@code image.gc.grace-period} не удаляются: на них могут ссылаться незафиксированные
+ * транзакции и изображения, загруженные для {@code POST /ads/bulk}. Повторная загрузка того же изображения
+ * обновляет время изменения файла, поэтому перед удалением оно проверяется еще раз.
+ * Включается свойством {@code image.gc.enabled=true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "image.gc.enabled", havingValue = "true")
+public class ImageGarbageCollector {
+
+    private final ImageLayout imageLayout;
+    private final AdsRepository adsRepository;
+    private final UserRepository userRepository;
+    private final ImageCache imageCache;
+    private final Counter reclaimedBytes;
+    private final Counter deletedFiles;
+    private final Duration gracePeriod;
+    private final Duration interval;
+    private final int batchSize;
+    private final Duration pause;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public ImageGarbageCollector(ImageLayout imageLayout,
+                                 AdsRepository adsRepository,
+                                 UserRepository userRepository,
+                                 ImageCache imageCache,
+                                 MeterRegistry meterRegistry,
+                                 @Value("${image.gc.grace-period:PT24H}") Duration gracePeriod,
+                                 @Value("${image.gc.interval:PT6H}") Duration interval,
+                                 @Value("${image.gc.batch-size:500}") int batchSize,
+                                 @Value("${image.gc.pause:PT1S}") Duration pause) {
+        this.imageLayout = imageLayout;
+        this.adsRepository = adsRepository;
+        this.userRepository = userRepository;
+        this.imageCache = imageCache;
+        this.reclaimedBytes = Counter.builder("images.gc.reclaimed")
+                .description("Disk space reclaimed by deleting orphaned images")
+                .baseUnit("bytes")
+                .register(meterRegistry);
+        this.deletedFiles = Counter.builder("images.gc.deleted")
+                .description("Orphaned image files deleted")
+                .register(meterRegistry);
+        this.gracePeriod = gracePeriod;
+        this.interval = interval;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "image-gc");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        while (running) {
+            try {
+                sweep();
+                Thread.sleep(interval.toMillis());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (IOException | RuntimeException e) {
+                log.error("Image garbage collection failed", e);
+                try {
+                    Thread.sleep(interval.toMillis());
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Обходит каталог изображений один раз и удаляет файлы без ссылок.
+     *
+     * @return Количество удаленных файлов.
+     */
+    long sweep() throws IOException, InterruptedException {
+        Instant cutoff = Instant.now().minus(gracePeriod);
+        long deleted = 0;
+        List<Path> batch = new ArrayList<>(batchSize);
+        try (Stream<Path> files = Files.find(imageLayout.getRoot(), Integer.MAX_VALUE,
+                (path, attributes) -> attributes.isRegularFile()
+                        && attributes.lastModifiedTime().toInstant().isBefore(cutoff))) {
+            Iterator<Path> iterator = files.iterator();
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize) {
+                    deleted += collect(batch, cutoff);
+                    batch.clear();
+                    Thread.sleep(pause.toMillis());
+                }
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        deleted += collect(batch, cutoff);
+        log.info("Image garbage collection deleted {} orphaned files", deleted);
+        return deleted;
+    }
+
+    /**
+     * Удаляет файлы пакета, на оригиналы которых нет ссылок.
+     */
+    private long collect(List<Path> batch, Instant cutoff) {
+        List<String> paths = batch.stream()
+                .map(file -> file.getFileName().toString())
+                .filter(imageLayout::isImageName)
+                .map(imageLayout::originalName)
+                .distinct()
+                .flatMap(name -> ImageService.referencePaths(name).stream())
+                .collect(Collectors.toList());
+        Set<String> referenced = new HashSet<>();
+        if (!paths.isEmpty()) {
+            referenced.addAll(adsRepository.findImagesIn(paths));
+            referenced.addAll(userRepository.findImagesIn(paths));
+        }
+        Set<String> referencedNames = referenced.stream()
+                .map(path -> path.substring(path.lastIndexOf('/') + 1))
+                .collect(Collectors.toSet());
+        long deleted = 0;
+        for (Path file : batch) {
+            String name = file.getFileName().toString();
+            boolean orphan = name.endsWith(".tmp")
+                    || imageLayout.isImageName(name) && !referencedNames.contains(imageLayout.originalName(name));
+            if (orphan && delete(file, cutoff)) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    private boolean delete(Path file, Instant cutoff) {
+        try {
+            if (!Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                return false;
+            }
+            long size = reclaimableSize(file);
+            Files.delete(file);
+            imageCache.invalidate(file.getFileName().toString());
+            reclaimedBytes.increment(size);
+            deletedFiles.increment();
+            log.trace("Deleted orphaned image {}", file.getFileName());
+            return true;
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            log.warn("Failed to delete orphaned image {}: {}", file.getFileName(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Размер файла или 0, если у файла есть другие жесткие ссылки (уменьшенная копия, совпадающая с оригиналом)
+     * и его удаление не освобождает место.
+     */
+    private static long reclaimableSize(Path file) throws IOException {
+        try {
+            if (((Number) Files.getAttribute(file, "unix:nlink")).intValue() > 1) {
+                return 0;
+            }
+        } catch (UnsupportedOperationException | IllegalArgumentException e) {
+            log.trace("Link count is not supported for {}", file.getFileName());
+        }
+        return Files.size(file);
+    }
+}
@@ -0,0 +1,166 @@
+package ru.skypro.homework.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import ru.skypro.homework.dto.ImageSize;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Размещение файлов изображений в каталоге {@code image.dir.path}.
+ * <p>
+ * Файлы хранятся в двух уровнях подкаталогов {@code ab/cd/<имя>}, где {@code abcd} — первые
+ * четыре шестнадцатеричные цифры SHA-256 от имени файла без расширения и суффикса размера.
+ * Так в одном каталоге остается не больше нескольких десятков файлов даже при миллионах изображений,
+ * а уменьшенные копии ({@code <имя>_thumb.<ext>}) лежат рядом с оригиналом.
+ * <p>
+ * Файлы, сохраненные до перехода на эту структуру, лежат прямо в корне каталога, пока их не перенесет
+ * {@link ImageLayoutMigration}. До окончания переноса файл, которого нет в подкаталоге, ищется и в корне.
+ * Перенос отмечается файлом {@value #MIGRATED_MARKER} в корне каталога.
+ */
+@Slf4j
+@Component
+public class ImageLayout {
+
+    static final String MIGRATED_MARKER = ".sharded";
+
+    private final Path root;
+    private volatile boolean flatFallback;
+
+    public ImageLayout(@Value("${image.dir.path}") String imageDir) {
+        this.root = Path.of(imageDir).toAbsolutePath().normalize();
+        this.flatFallback = !Files.exists(root.resolve(MIGRATED_MARKER));
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Проверяет, что имя может быть именем файла изображения: это одно имя без разделителей каталогов,
+     * не скрытый файл и не временный файл загрузки.
+     */
+    public boolean isImageName(String name) {
+        return name != null && !name.isEmpty()
+                && name.indexOf('/') < 0 && name.indexOf('\\') < 0
+                && !name.startsWith(".") && !name.endsWith(".tmp");
+    }
+
+    /**
+     * Путь файла в структуре подкаталогов. Файла по этому пути может не быть.
+     *
+     * @throws IllegalArgumentException Если имя не может быть именем файла изображения.
+     */
+    public Path pathOf(String name) {
+        if (!isImageName(name)) {
+            throw new IllegalArgumentException("Invalid image name: " + name);
+        }
+        String shard = shardOf(name);
+        return root.resolve(shard.substring(0, 2)).resolve(shard.substring(2, 4)).resolve(name);
+    }
+
+    /**
+     * Находит существующий файл изображения: сначала в подкаталоге, а до окончания переноса — и в корне.
+     * Если файл переносится одновременно с поиском, подкаталог проверяется повторно.
+     *
+     * @return Путь к файлу или {@link Optional#empty()}, если файла нет или имя недопустимо.
+     */
+    public Optional<Path> locate(String name) {
+        if (!isImageName(name)) {
+            return Optional.empty();
+        }
+        Path path = pathOf(name);
+        if (Files.isRegularFile(path)) {
+            return Optional.of(path);
+        }
+        if (flatFallback) {
+            Path flat = root.resolve(name);
+            if (Files.isRegularFile(flat)) {
+                return Optional.of(flat);
+            }
+            if (Files.isRegularFile(path)) {
+                return Optional.of(path);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Все пути, по которым может лежать файл: в подкаталоге и, до окончания переноса, в корне.
+     */
+    public List<Path> candidates(String name) {
+        List<Path> paths = new ArrayList<>(2);
+        paths.add(pathOf(name));
+        if (flatFallback) {
+            paths.add(root.resolve(name));
+        }
+        return paths;
+    }
+
+    /**
+     * Имя оригинала для имени уменьшенной копии ({@code <имя>_thumb.<ext>} → {@code <имя>.<ext>}).
+     * Для имени оригинала возвращает его же.
+     */
+    public String originalName(String name) {
+        String extension = StringUtils.getFilenameExtension(name);
+        String baseName = StringUtils.stripFilenameExtension(name);
+        for (ImageSize size : ImageSize.values()) {
+            String suffix = "_" + size.getValue();
+            if (size != ImageSize.FULL && baseName.endsWith(suffix)) {
+                baseName = baseName.substring(0, baseName.length() - suffix.length());
+                return extension == null ? baseName : baseName + "." + extension;
+            }
+        }
+        return name;
+    }
+
+    public boolean isMigrated() {
+        return !flatFallback;
+    }
+
+    /**
+     * Отмечает, что в корне каталога не осталось изображений, и отключает поиск в корне.
+     */
+    void markMigrated() throws IOException {
+        if (!Files.exists(root.resolve(MIGRATED_MARKER))) {
+            Files.createFile(root.resolve(MIGRATED_MARKER));
+        }
+        flatFallback = false;
+        log.info("Image directory {} uses sharded layout", root);
+    }
+
+    /**
+     * Четыре шестнадцатеричные цифры хеша от имени файла без расширения и суффикса размера,
+     * чтобы оригинал и его уменьшенные копии попадали в один подкаталог.
+     */
+    private static String shardOf(String name) {
+        int end = name.length();
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == '.' || c == '_') {
+                end = i;
+                break;
+            }
+        }
+        byte[] hash = sha256().digest(name.substring(0, end).getBytes(StandardCharsets.UTF_8));
+        return String.format("%02x%02x", hash[0], hash[1]);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+}
@@ -0,0 +1,145 @@
+package ru.skypro.homework.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+
+/**
+ * Переносит файлы изображений из корня каталога {@code image.dir.path} в подкаталоги {@link ImageLayout}.
+ * <p>
+ * Перенос выполняется в фоновом потоке после запуска приложения, пока приложение обслуживает запросы:
+ * каждый файл переносится атомарным переименованием, а {@link ImageLayout#locate(String)} до окончания
+ * переноса ищет файлы в обоих местах. Файлы переносятся пакетами по {@code image.layout.migration.batch-size}
+ * с паузой {@code image.layout.migration.pause} между пакетами, чтобы перенос не отнимал дисковый ввод-вывод
+ * у запросов. Перенос можно прервать в любой момент: при следующем запуске он продолжится с файлов,
+ * оставшихся в корне. Когда в корне не остается изображений, {@link ImageLayout#markMigrated()} отключает
+ * поиск в корне. Включается свойством {@code image.layout.migration.enabled=true}.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(value = "image.layout.migration.enabled", havingValue = "true")
+public class ImageLayoutMigration {
+
+    private final ImageLayout imageLayout;
+    private final int batchSize;
+    private final Duration pause;
+
+    private volatile boolean running;
+    private Thread thread;
+
+    public ImageLayoutMigration(ImageLayout imageLayout,
+                                @Value("${image.layout.migration.batch-size:1000}") int batchSize,
+                                @Value("${image.layout.migration.pause:PT1S}") Duration pause) {
+        this.imageLayout = imageLayout;
+        this.batchSize = batchSize;
+        this.pause = pause;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (running || imageLayout.isMigrated()) {
+            return;
+        }
+        running = true;
+        thread = new Thread(this::run, "image-layout-migration");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    private void run() {
+        try {
+            migrate();
+        } catch (IOException e) {
+            log.error("Image layout migration failed, it will resume on next start", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.info("Image layout migration interrupted, it will resume on next start");
+        }
+    }
+
+    /**
+     * Переносит все изображения из корня каталога.
+     *
+     * @return Количество перенесенных файлов.
+     */
+    long migrate() throws IOException, InterruptedException {
+        Path root = imageLayout.getRoot();
+        long moved = 0;
+        long failed = 0;
+        int inBatch = 0;
+        log.info("Migrating images in {} to sharded layout", root);
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(root, Files::isRegularFile)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!imageLayout.isImageName(name)) {
+                    continue;
+                }
+                if (move(file, imageLayout.pathOf(name))) {
+                    moved++;
+                } else {
+                    failed++;
+                }
+                if (++inBatch == batchSize) {
+                    inBatch = 0;
+                    log.info("Moved {} images to sharded layout", moved);
+                    Thread.sleep(pause.toMillis());
+                }
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        }
+        if (failed > 0) {
+            log.warn("Moved {} images, {} left in {}; migration will resume on next start", moved, failed, root);
+        } else {
+            log.info("Moved {} images, migration finished", moved);
+            imageLayout.markMigrated();
+        }
+        return moved;
+    }
+
+    /**
+     * Переносит файл атомарным переименованием. Если файл с таким именем уже есть в подкаталоге
+     * (например, то же изображение загрузили повторно во время переноса), файл в корне удаляется.
+     * Файл, удаленный во время переноса, считается перенесенным.
+     */
+    private boolean move(Path file, Path target) {
+        try {
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                Files.delete(file);
+            } else {
+                Files.move(file, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return true;
+        } catch (FileAlreadyExistsException e) {
+            return move(file, target);
+        } catch (NoSuchFileException e) {
+            return true;
+        } catch (IOException e) {
+            log.warn("Failed to move image {}: {}", file.getFileName(), e.getMessage());
+            return false;
+        }
+    }
+}
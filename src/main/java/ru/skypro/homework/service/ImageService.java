@@ -4,65 +4,522 @@ import liquibase.pro.packaged.F;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.cache.ImageCache;
+import ru.skypro.homework.dto.ImageSize;
+import ru.skypro.homework.exception.ImageTooLargeException;
+import ru.skypro.homework.exception.UnsupportedImageException;
+import ru.skypro.homework.repository.AdsRepository;
+import ru.skypro.homework.repository.UserRepository;
 
-
-import java.io.File;
+import javax.annotation.PreDestroy;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
 import java.io.IOException;
-
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.UUID;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ImageService {
 
-    @Value("${image.dir.path}")
-    private String imageDir;
+    /**
+     * Префиксы путей, под которыми изображения сохраняются в объявлениях и пользователях.
+     */
+    private static final List<String> OWNERS = List.of("/ads", "/users");
 
-    public String saveImage(MultipartFile image, String name) {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static final int FILE_LOCKS = 64;
+
+    @Value("${image.size.thumb:200}")
+    private int thumbSize;
+
+    @Value("${image.size.medium:800}")
+    private int mediumSize;
 
-        String extension = StringUtils.getFilenameExtension(image.getOriginalFilename());
-        String filename = UUID.randomUUID() + "." + extension;
-        Path filePath = Path.of(imageDir, filename);
+    @Value("${image.variant.max-pixels:100000000}")
+    private long variantMaxPixels;
+
+    @Value("${image.upload.max-bytes:10485760}")
+    private long maxUploadBytes;
+
+    @Value("${image.store.reuse-grace:PT10M}")
+    private Duration reuseGrace;
+
+    private final AdsRepository adsRepository;
+    private final UserRepository userRepository;
+    private final ImageLayout imageLayout;
+    private final ImageCache imageCache;
+    private final ConcurrentMap<Path, CompletableFuture<Path>> variantsInProgress = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Boolean> deferredDeletes = new ConcurrentHashMap<>();
+    private final Object[] fileLocks = newLocks();
+    private final ScheduledExecutorService deleteScheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "image-deferred-delete");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Сохраняет изображение в хранилище с адресацией по содержимому.
+     * <p>
+     * Имя файла — SHA-256 содержимого в шестнадцатеричном виде и расширение формата изображения,
+     * поэтому одинаковые изображения, загруженные к разным объявлениям и пользователям, хранятся
+     * одним файлом и отдаются по одному адресу. Загрузка не читается в память целиком: она копируется
+     * во временный файл в каталоге изображений через буфер {@value #BUFFER_SIZE} байт, и в том же проходе
+     * считается хеш, определяется формат по сигнатуре и проверяется размер. Затем временный файл
+     * атомарно переименовывается, так что частично записанный файл под итоговым именем не виден.
+     * Если файл с таким содержимым уже есть, временный файл удаляется, а у существующего только
+     * обновляется время изменения: {@link #deleteFileIfNotNull(String)} откладывает удаление недавно
+     * сохраненных файлов, на которые еще может сослаться незафиксированная транзакция. Поиск и обновление
+     * существующего файла выполняются под той же блокировкой имени, что и удаление.
+     *
+     * @param image Загруженный файл.
+     * @param name  Префикс пути ({@code /ads} или {@code /users}).
+     * @return Путь к изображению вида {@code name/image/<sha256>.<ext>}.
+     * @throws ImageTooLargeException     Если файл больше {@code image.upload.max-bytes} байт.
+     * @throws UnsupportedImageException Если файл не является изображением JPEG, PNG, GIF, WebP или BMP.
+     */
+    public String saveImage(MultipartFile image, String name) {
+        if (image.getSize() > maxUploadBytes) {
+            throw new ImageTooLargeException("Image is larger than " + maxUploadBytes + " bytes");
+        }
+        Path tempFile = null;
+        String filename;
         try {
-            Files.write(filePath, image.getBytes());
+            tempFile = Files.createTempFile(imageLayout.getRoot(), "upload", ".tmp");
+            filename = copyToTempFile(image, tempFile);
+            createVariants(store(tempFile, filename));
         } catch (IOException e) {
             log.error("Error writing file: {}", e.getMessage());
             throw new RuntimeException("Error writing file", e);
+        } finally {
+            deleteQuietly(tempFile);
         }
-        log.trace("Loaded file, name: ", filename);
         return name + "/image/" + filename;
     }
 
-    public byte[] getImage(String name) throws IOException {
-        String fullPath = imageDir + "/" + name;
-        File file = new File(fullPath);
-        if (file.exists()) {
-            return Files.readAllBytes(Path.of(fullPath));
+    /**
+     * Переносит временный файл под итоговое имя или, если файл с таким содержимым уже есть,
+     * обновляет время изменения существующего.
+     */
+    private Path store(Path tempFile, String filename) throws IOException {
+        synchronized (lockFor(filename)) {
+            Optional<Path> existing = imageLayout.locate(filename);
+            if (existing.isPresent()) {
+                Files.setLastModifiedTime(existing.get(), FileTime.from(Instant.now()));
+                log.trace("Reused stored file {}", filename);
+                return existing.get();
+            }
+            Path filePath = imageLayout.pathOf(filename);
+            Files.createDirectories(filePath.getParent());
+            try {
+                Files.move(tempFile, filePath, StandardCopyOption.ATOMIC_MOVE);
+                log.trace("Stored file {}", filename);
+            } catch (FileAlreadyExistsException e) {
+                log.trace("File {} was stored by a concurrent upload", filename);
+            }
+            return filePath;
+        }
+    }
+
+    /**
+     * Копирует загрузку во временный файл блоками по {@value #BUFFER_SIZE} байт.
+     * Каждый блок передается в {@link MessageDigest} и записывается в файл; по первому блоку определяется формат.
+     *
+     * @return Имя файла в хранилище: хеш содержимого и расширение формата.
+     */
+    private String copyToTempFile(MultipartFile image, Path tempFile) throws IOException {
+        MessageDigest digest = sha256();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        ImageFormat format = null;
+        long size = 0;
+        try (ReadableByteChannel in = Channels.newChannel(image.getInputStream());
+             FileChannel out = FileChannel.open(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            boolean eof = false;
+            while (!eof) {
+                eof = fill(in, buffer);
+                buffer.flip();
+                size += buffer.remaining();
+                if (size > maxUploadBytes) {
+                    throw new ImageTooLargeException("Image is larger than " + maxUploadBytes + " bytes");
+                }
+                if (format == null) {
+                    format = ImageFormat.sniff(buffer)
+                            .orElseThrow(() -> new UnsupportedImageException("Unsupported image format"));
+                }
+                digest.update(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer);
+                }
+                buffer.clear();
+            }
+        }
+        return String.format("%064x", new BigInteger(1, digest.digest())) + "." + format.getExtension();
+    }
+
+    /**
+     * Читает из канала, пока буфер не заполнится или поток не закончится.
+     *
+     * @return true, если поток закончился.
+     */
+    private static boolean fill(ReadableByteChannel in, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (in.read(buffer) < 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not supported", e);
+        }
+    }
+
+    /**
+     * Находит файл изображения по имени.
+     * Файл не читается в память: возвращается {@link Resource}, который передается клиенту потоком.
+     * <p>
+     * Для размеров {@link ImageSize#THUMB} и {@link ImageSize#MEDIUM} возвращается уменьшенная копия,
+     * которая создается при загрузке изображения (для изображений, загруженных раньше, — при первом запросе)
+     * и сохраняется рядом с оригиналом. Если изображение уже меньше запрошенного размера или копию создать
+     * нельзя, копией служит ссылка на оригинал.
+     * <p>
+     * Часто запрашиваемые изображения отдаются из {@link ImageCache} без обращения к файловой системе.
+     *
+     * @param name Имя файла изображения.
+     * @param size Запрошенный размер изображения.
+     * @return Ресурс с изображением или {@link Optional#empty()}, если файла нет,
+     * имя не может быть именем файла изображения (см. {@link ImageLayout#isImageName(String)})
+     * или уменьшенная копия запрошена для файла, который сам является уменьшенной копией.
+     */
+    public Optional<Resource> getImage(String name, ImageSize size) {
+        if (!imageLayout.isImageName(name)
+                || size != ImageSize.FULL && !imageLayout.originalName(name).equals(name)) {
+            return Optional.empty();
+        }
+        String fileName = size == ImageSize.FULL ? name : variantName(name, size);
+        Optional<Resource> cached = imageCache.get(fileName);
+        if (cached.isPresent()) {
+            return cached;
+        }
+        return imageLayout.locate(name)
+                .map(filePath -> size == ImageSize.FULL ? filePath : getOrCreateVariant(filePath, size))
+                .map(filePath -> filePath.getFileName().toString().equals(fileName)
+                        ? imageCache.load(fileName, filePath)
+                        : new FileSystemResource(filePath));
+    }
+
+    /**
+     * Проверяет, что в каталоге изображений есть файл с указанным именем.
+     *
+     * @param name Имя файла изображения.
+     * @return false, если файла нет или имя не может быть именем файла изображения.
+     */
+    public boolean exists(String name) {
+        return imageLayout.locate(name).isPresent();
+    }
+
+    /**
+     * Создает уменьшенные копии нового изображения, чтобы первый запрос копии не тратил время на ее создание.
+     * Ошибки создания не прерывают загрузку: копия будет создана при первом запросе.
+     */
+    private void createVariants(Path original) {
+        for (ImageSize size : ImageSize.values()) {
+            if (size != ImageSize.FULL) {
+                getOrCreateVariant(original, size);
+            }
+        }
+    }
+
+    /**
+     * Возвращает уменьшенную копию изображения, создавая ее при отсутствии.
+     * Одновременные запросы одной копии ждут результата первого, поэтому копия создается один раз.
+     */
+    private Path getOrCreateVariant(Path original, ImageSize size) {
+        Path variant = variantPath(original, size);
+        if (Files.isRegularFile(variant)) {
+            return variant;
+        }
+        CompletableFuture<Path> result = new CompletableFuture<>();
+        CompletableFuture<Path> inProgress = variantsInProgress.putIfAbsent(variant, result);
+        if (inProgress != null) {
+            return inProgress.join();
+        }
+        try {
+            Path created = Files.isRegularFile(variant) ? variant : createVariant(original, variant, size);
+            result.complete(created);
+            return created;
+        } catch (RuntimeException e) {
+            result.complete(original);
+            throw e;
+        } finally {
+            variantsInProgress.remove(variant, result);
+        }
+    }
+
+    /**
+     * Создает уменьшенную копию изображения.
+     * <p>
+     * Сначала {@link ImageReader} читает только размеры изображения. Изображения больше
+     * {@code image.variant.max-pixels} пикселей не декодируются вовсе, а остальные декодируются
+     * с прореживанием строк и столбцов сразу до размера, не более чем вдвое превышающего нужный,
+     * поэтому память на декодирование не зависит от размера исходного изображения.
+     * <p>
+     * Если копию создать нельзя или не нужно (изображение уже меньше нужного размера, слишком большое,
+     * поврежденное, или {@link ImageIO} не поддерживает его формат), на месте копии создается жесткая
+     * ссылка на оригинал. Так этот результат сохраняется, и оригинал не декодируется повторно при каждом запросе.
+     */
+    private Path createVariant(Path original, Path variant, ImageSize size) {
+        int maxSide = size == ImageSize.THUMB ? thumbSize : mediumSize;
+        String format = StringUtils.getFilenameExtension(original.getFileName().toString());
+        Path tempFile = null;
+        try (ImageInputStream input = ImageIO.createImageInputStream(original.toFile())) {
+            Iterator<ImageReader> readers = input == null ? Collections.emptyIterator() : ImageIO.getImageReaders(input);
+            if (format == null || !readers.hasNext() || !ImageIO.getImageWritersBySuffix(format).hasNext()) {
+                return linkOriginal(original, variant);
+            }
+            ImageReader reader = readers.next();
+            BufferedImage source;
+            try {
+                reader.setInput(input, true, true);
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                if ((long) width * height > variantMaxPixels) {
+                    log.warn("Image {} of {}x{} pixels is too large for variants", original.getFileName(), width, height);
+                    return linkOriginal(original, variant);
+                }
+                if (Math.max(width, height) <= maxSide) {
+                    return linkOriginal(original, variant);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int subsampling = Math.max(1, Math.max(width, height) / (maxSide * 2));
+                param.setSourceSubsampling(subsampling, subsampling, 0, 0);
+                source = reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+            tempFile = Files.createTempFile(original.getParent(), "variant", ".tmp");
+            if (!ImageIO.write(resize(source, maxSide), format, tempFile.toFile())) {
+                return linkOriginal(original, variant);
+            }
+            Files.move(tempFile, variant, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            log.trace("Created {} variant of {}", size.getValue(), original.getFileName());
+            return variant;
+        } catch (IOException e) {
+            log.error("Error creating {} variant of {}: {}", size.getValue(), original.getFileName(), e.getMessage());
+            return linkOriginal(original, variant);
+        } finally {
+            deleteQuietly(tempFile);
+        }
+    }
+
+    private Path linkOriginal(Path original, Path variant) {
+        try {
+            Files.createLink(variant, original);
+        } catch (FileAlreadyExistsException e) {
+            log.trace("Variant {} already exists", variant.getFileName());
+        } catch (IOException | UnsupportedOperationException e) {
+            try {
+                Files.copy(original, variant, StandardCopyOption.REPLACE_EXISTING);
+            } catch (IOException copyException) {
+                log.error("Error linking variant {}: {}", variant.getFileName(), copyException.getMessage());
+                return original;
+            }
+        }
+        return variant;
+    }
+
+    /**
+     * Уменьшает изображение так, чтобы большая сторона не превышала {@code maxSide}.
+     * Уменьшение выполняется последовательными шагами не более чем в два раза,
+     * чтобы билинейная интерполяция не теряла детали.
+     */
+    private BufferedImage resize(BufferedImage source, int maxSide) {
+        double scale = (double) maxSide / Math.max(source.getWidth(), source.getHeight());
+        int targetWidth = Math.max(1, (int) Math.round(source.getWidth() * scale));
+        int targetHeight = Math.max(1, (int) Math.round(source.getHeight() * scale));
+        int type = source.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage result = source;
+        int width = source.getWidth();
+        int height = source.getHeight();
+        do {
+            width = Math.max(targetWidth, width / 2);
+            height = Math.max(targetHeight, height / 2);
+            BufferedImage step = new BufferedImage(width, height, type);
+            Graphics2D graphics = step.createGraphics();
+            graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            graphics.drawImage(result, 0, 0, width, height, null);
+            graphics.dispose();
+            result = step;
+        } while (width != targetWidth || height != targetHeight);
+        return result;
+    }
+
+    private Path variantPath(Path original, ImageSize size) {
+        return original.resolveSibling(variantName(original.getFileName().toString(), size));
+    }
+
+    private static String variantName(String fileName, ImageSize size) {
+        String extension = StringUtils.getFilenameExtension(fileName);
+        String baseName = StringUtils.stripFilenameExtension(fileName);
+        return baseName + "_" + size.getValue() + (extension == null ? "" : "." + extension);
+    }
+
+    private void deleteQuietly(Path path) {
+        if (path == null) {
+            return;
+        }
+        try {
+            Files.deleteIfExists(path);
+        } catch (IOException e) {
+            log.trace("Failed to delete temporary file {}", path);
         }
-        return null;
     }
 
+    /**
+     * Удаляет файл изображения и его уменьшенные копии с диска и из {@link ImageCache}, если на изображение больше не ссылается
+     * ни одно объявление и ни один пользователь ({@code ads.image} и {@code users.image}).
+     * <p>
+     * Вызывается после фиксации изменения, которое убрало ссылку, чтобы подсчет ссылок видел
+     * зафиксированное состояние. Удаление файлов, сохраненных или повторно загруженных за последние
+     * {@code image.store.reuse-grace}, откладывается до истечения этого срока: на них может сослаться
+     * транзакция, которая еще не зафиксирована. Отложенное удаление заново проверяет ссылки и время изменения.
+     * Проверка и удаление выполняются под блокировкой имени файла, поэтому не пересекаются
+     * с повторной загрузкой того же изображения в {@link #saveImage(MultipartFile, String)}.
+     *
+     * @param path Путь к изображению, сохраненный в объявлении или пользователе, или null.
+     */
     public void deleteFileIfNotNull(String path) {
         if (path == null) {
             return;
         }
-        String fileName = path.substring(path.lastIndexOf('/'));
-        File fileToDelete = new File(imageDir + fileName);
-        if (fileToDelete.exists()) {
-            if (fileToDelete.delete()) {
-                log.trace("File successfully deleted");
-            } else {
-                log.trace("Failed to delete file");
+        String fileName = path.substring(path.lastIndexOf('/') + 1);
+        if (!imageLayout.isImageName(fileName)) {
+            log.trace("Invalid file name {}", fileName);
+            return;
+        }
+        synchronized (lockFor(fileName)) {
+            long references = countReferences(fileName);
+            if (references > 0) {
+                log.trace("File {} is still referenced {} times", fileName, references);
+                return;
+            }
+            Optional<Path> filePath = imageLayout.locate(fileName);
+            try {
+                if (filePath.isEmpty()) {
+                    log.trace("File not found");
+                } else {
+                    Instant deleteAfter = Files.getLastModifiedTime(filePath.get()).toInstant().plus(reuseGrace);
+                    if (deleteAfter.isAfter(Instant.now())) {
+                        deferDelete(path, Duration.between(Instant.now(), deleteAfter));
+                        return;
+                    }
+                    Files.delete(filePath.get());
+                    log.trace("File successfully deleted");
+                }
+            } catch (IOException e) {
+                log.trace("Failed to delete file {}: {}", fileName, e.getMessage());
+            }
+            imageCache.invalidate(fileName);
+            for (ImageSize size : ImageSize.values()) {
+                if (size != ImageSize.FULL) {
+                    imageCache.invalidate(variantName(fileName, size));
+                    for (Path candidate : imageLayout.candidates(fileName)) {
+                        deleteQuietly(variantPath(candidate, size));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Повторяет {@link #deleteFileIfNotNull(String)} после истечения срока повторного использования файла.
+     * Для одного файла в очереди находится не больше одного удаления.
+     */
+    private void deferDelete(String path, Duration delay) {
+        if (deferredDeletes.putIfAbsent(path, Boolean.TRUE) != null) {
+            return;
+        }
+        log.trace("File {} was stored recently, deleting in {}", path, delay);
+        deleteScheduler.schedule(() -> {
+            deferredDeletes.remove(path);
+            try {
+                deleteFileIfNotNull(path);
+            } catch (RuntimeException e) {
+                log.error("Deferred delete of {} failed", path, e);
             }
-        } else {
-            log.trace("File not found");
+        }, delay.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        deleteScheduler.shutdownNow();
+    }
+
+    private Object lockFor(String fileName) {
+        return fileLocks[Math.floorMod(fileName.hashCode(), fileLocks.length)];
+    }
+
+    private static Object[] newLocks() {
+        Object[] locks = new Object[FILE_LOCKS];
+        for (int i = 0; i < locks.length; i++) {
+            locks[i] = new Object();
         }
+        return locks;
+    }
+
+    private long countReferences(String fileName) {
+        List<String> paths = referencePaths(fileName);
+        return adsRepository.countByImageIn(paths) + userRepository.countByImageIn(paths);
+    }
+
+    /**
+     * Пути, под которыми файл может быть указан в {@code ads.image} и {@code users.image}.
+     */
+    static List<String> referencePaths(String fileName) {
+        return OWNERS.stream()
+                .map(owner -> owner + "/image/" + fileName)
+                .collect(Collectors.toList());
     }
 }
@@ -0,0 +1,73 @@
+package ru.skypro.homework.service;
+
+import ru.skypro.homework.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.StringJoiner;
+
+/**
+ * Непрозрачный курсор для keyset-пагинации.
+ * <p>
+ * Курсор хранит значения ключей сортировки последней записи страницы,
+ * закодированные в base64url, чтобы клиент не зависел от их формата.
+ */
+public final class PageCursor {
+
+    private static final String SEPARATOR = "|";
+
+    private PageCursor() {
+    }
+
+    /**
+     * Кодирует значения ключей последней записи страницы в курсор.
+     *
+     * @param keys Значения ключей сортировки.
+     * @return Строка курсора.
+     */
+    public static String encode(Object... keys) {
+        StringJoiner joiner = new StringJoiner(SEPARATOR);
+        for (Object key : keys) {
+            joiner.add(String.valueOf(key));
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(joiner.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Декодирует курсор в значения ключей.
+     *
+     * @param cursor       Строка курсора.
+     * @param expectedKeys Ожидаемое количество ключей.
+     * @return Массив значений ключей.
+     * @throws InvalidCursorException Если курсор поврежден или имеет другой формат.
+     */
+    public static String[] decode(String cursor, int expectedKeys) {
+        String[] keys;
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            keys = decoded.split("\\" + SEPARATOR, -1);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException(cursor);
+        }
+        if (keys.length != expectedKeys) {
+            throw new InvalidCursorException(cursor);
+        }
+        return keys;
+    }
+
+    /**
+     * Декодирует курсор, состоящий из одного целочисленного ключа.
+     *
+     * @param cursor Строка курсора.
+     * @return Значение ключа.
+     * @throws InvalidCursorException Если курсор поврежден или имеет другой формат.
+     */
+    public static int decodeInt(String cursor) {
+        try {
+            return Integer.parseInt(decode(cursor, 1)[0]);
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException(cursor);
+        }
+    }
+}
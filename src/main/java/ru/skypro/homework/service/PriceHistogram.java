@@ -0,0 +1,76 @@
+package ru.skypro.homework.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.skypro.homework.dto.PriceBucket;
+import ru.skypro.homework.repository.AdsRepository;
+import ru.skypro.homework.repository.PriceBucketCount;
+import ru.skypro.homework.repository.PriceRange;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Кэшированная гистограмма цен объявлений для фильтра по цене.
+ * <p>
+ * Диапазон от минимальной до максимальной цены делится на {@code ads.price-histogram.buckets}
+ * равных интервалов, количество объявлений в них считается одним запросом
+ * {@link AdsRepository#countByPriceBuckets(int, int)}. Гистограмма перечитывается не чаще
+ * одного раза за {@code ads.price-histogram.refresh-interval}.
+ */
+@Component
+@RequiredArgsConstructor
+public class PriceHistogram {
+
+    private final AdsRepository adsRepository;
+
+    @Value("${ads.price-histogram.buckets:20}")
+    private int bucketCount;
+    @Value("${ads.price-histogram.refresh-interval:PT1M}")
+    private Duration refreshInterval;
+
+    private volatile List<PriceBucket> buckets = List.of();
+    private volatile long loadedAt;
+    private volatile boolean loaded;
+
+    public List<PriceBucket> get() {
+        if (isStale()) {
+            synchronized (this) {
+                if (isStale()) {
+                    buckets = load();
+                    loadedAt = System.nanoTime();
+                    loaded = true;
+                }
+            }
+        }
+        return buckets;
+    }
+
+    private List<PriceBucket> load() {
+        PriceRange range = adsRepository.findPriceRange();
+        if (range == null || range.getMinPrice() == null) {
+            return List.of();
+        }
+        int min = range.getMinPrice();
+        long span = (long) range.getMaxPrice() - min + 1;
+        int width = (int) Math.max(1, (span + bucketCount - 1) / bucketCount);
+        int count = (int) ((span + width - 1) / width);
+        long[] totals = new long[count];
+        for (PriceBucketCount bucket : adsRepository.countByPriceBuckets(min, width)) {
+            totals[bucket.getBucket()] = bucket.getTotal();
+        }
+        List<PriceBucket> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            int from = (int) (min + (long) i * width);
+            int to = (int) Math.min((long) from + width - 1, range.getMaxPrice());
+            result.add(new PriceBucket(from, to, totals[i]));
+        }
+        return List.copyOf(result);
+    }
+
+    private boolean isStale() {
+        return !loaded || System.nanoTime() - loadedAt > refreshInterval.toNanos();
+    }
+}
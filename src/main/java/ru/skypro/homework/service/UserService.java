@@ -1,10 +1,12 @@
 package ru.skypro.homework.service;
 
+import org.springframework.core.io.Resource;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.dto.ImageSize;
 import ru.skypro.homework.dto.NewPassword;
 import ru.skypro.homework.dto.UserDto;
 
-import java.io.IOException;
+import java.util.Optional;
 
 public interface UserService {
 
@@ -16,5 +18,5 @@ public interface UserService {
 
     void updateAvatar(MultipartFile image, String email);
 
-    byte[] getImage(String name) throws IOException;
+    Optional<Resource> getImage(String name, ImageSize size);
 }
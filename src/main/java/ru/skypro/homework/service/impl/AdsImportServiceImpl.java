@@ -0,0 +1,263 @@
+package ru.skypro.homework.service.impl;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.skypro.homework.cache.CacheInvalidationBus;
+import ru.skypro.homework.dto.BulkAdsResult;
+import ru.skypro.homework.dto.BulkAdsRow;
+import ru.skypro.homework.dto.BulkFormat;
+import ru.skypro.homework.entity.Ads;
+import ru.skypro.homework.entity.User;
+import ru.skypro.homework.exception.UserWithEmailNotFoundException;
+import ru.skypro.homework.repository.AdsRepository;
+import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.search.AdsSearchIndex;
+import ru.skypro.homework.service.AdsCounter;
+import ru.skypro.homework.service.AdsImportService;
+import ru.skypro.homework.service.ImageService;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Service
+public class AdsImportServiceImpl implements AdsImportService {
+
+    private static final String IMAGE_PATH = "/ads/image/";
+    private static final int MAX_TITLE_LENGTH = 255;
+
+    private final AdsRepository adsRepository;
+    private final UserRepository userRepository;
+    private final ImageService imageService;
+    private final AdsCounter adsCounter;
+    private final AdsSearchIndex adsSearchIndex;
+    private final CacheInvalidationBus cacheInvalidationBus;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    private final CsvMapper csvMapper = new CsvMapper();
+    private final int batchSize;
+    private final int maxRows;
+
+    public AdsImportServiceImpl(AdsRepository adsRepository,
+                                UserRepository userRepository,
+                                ImageService imageService,
+                                AdsCounter adsCounter,
+                                AdsSearchIndex adsSearchIndex,
+                                CacheInvalidationBus cacheInvalidationBus,
+                                TransactionTemplate transactionTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${ads.bulk.batch-size:500}") int batchSize,
+                                @Value("${ads.bulk.max-rows:100000}") int maxRows) {
+        this.adsRepository = adsRepository;
+        this.userRepository = userRepository;
+        this.imageService = imageService;
+        this.adsCounter = adsCounter;
+        this.adsSearchIndex = adsSearchIndex;
+        this.cacheInvalidationBus = cacheInvalidationBus;
+        this.transactionTemplate = transactionTemplate;
+        this.objectMapper = objectMapper;
+        this.batchSize = batchSize;
+        this.maxRows = maxRows;
+    }
+
+    /**
+     * Создает объявления пользователя из потока строк NDJSON или CSV.
+     * <p>
+     * Строки читаются по одной и проверяются; корректные строки сохраняются через
+     * {@link AdsRepository#saveAll(Iterable)} пакетами по {@code ads.bulk.batch-size} объявлений,
+     * каждый пакет — в отдельной транзакции. Если пакет сохранить не удалось, его объявления
+     * сохраняются по одному, чтобы ошибка одной строки не отменяла остальные.
+     * Результаты {@link BulkAdsResult} записываются в выходной поток в порядке строк, по одному
+     * объекту JSON на строку: результат ошибочной строки — сразу, если перед ней нет несохраненных объявлений,
+     * остальные — после сохранения пакета. Пакет сохраняется, когда накоплено {@code ads.bulk.batch-size} строк,
+     * включая ошибочные, поэтому в памяти держится не больше одного пакета. Нечитаемая строка NDJSON завершает загрузку,
+     * строки сверх {@code ads.bulk.max-rows} не обрабатываются.
+     *
+     * @param inputStream  Тело запроса.
+     * @param format       Формат тела запроса.
+     * @param email        Адрес электронной почты пользователя — автора объявлений.
+     * @param outputStream Поток, в который записываются результаты.
+     * @throws UserWithEmailNotFoundException Если пользователя с указанным адресом электронной почты не найдено.
+     * @throws IOException                    Если произошла ошибка чтения запроса или записи ответа.
+     */
+    @Override
+    public void importAds(InputStream inputStream, BulkFormat format, String email, OutputStream outputStream) throws IOException {
+        User user = userRepository.findByEmail(email)
+                .orElseThrow(() -> new UserWithEmailNotFoundException(email));
+        ObjectWriter writer = objectMapper.writerFor(BulkAdsResult.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        LocalDateTime createdAt = LocalDateTime.now();
+        try (MappingIterator<?> rows = openRows(inputStream, format);
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setRootValueSeparator(new SerializedString("\n"));
+            List<PendingRow> pending = new ArrayList<>();
+            int row = 0;
+            while (true) {
+                Object raw;
+                try {
+                    if (!rows.hasNextValue()) {
+                        break;
+                    }
+                    raw = rows.nextValue();
+                } catch (JsonProcessingException e) {
+                    pending.add(new PendingRow(BulkAdsResult.failed(row + 1, "Malformed row: " + e.getOriginalMessage()), null));
+                    break;
+                }
+                if (++row > maxRows) {
+                    pending.add(new PendingRow(BulkAdsResult.failed(row, "Row limit of " + maxRows + " exceeded"), null));
+                    break;
+                }
+                PendingRow pendingRow = toPendingRow(row, raw, user, createdAt);
+                if (pendingRow.ads == null && pending.isEmpty()) {
+                    writer.writeValue(generator, pendingRow.result);
+                    continue;
+                }
+                pending.add(pendingRow);
+                if (pending.size() == batchSize) {
+                    flush(pending, writer, generator);
+                }
+            }
+            flush(pending, writer, generator);
+            log.trace("Imported {} rows", row);
+        }
+    }
+
+    private MappingIterator<?> openRows(InputStream inputStream, BulkFormat format) throws IOException {
+        if (format == BulkFormat.CSV) {
+            return csvMapper.readerFor(Map.class)
+                    .with(CsvSchema.emptySchema().withHeader())
+                    .readValues(inputStream);
+        }
+        return objectMapper.readerFor(JsonNode.class).readValues(inputStream);
+    }
+
+    private PendingRow toPendingRow(int row, Object raw, User user, LocalDateTime createdAt) {
+        BulkAdsRow bulkAdsRow;
+        try {
+            bulkAdsRow = objectMapper.convertValue(raw, BulkAdsRow.class);
+        } catch (IllegalArgumentException e) {
+            return new PendingRow(BulkAdsResult.failed(row, "Invalid row: " + rootMessage(e)), null);
+        }
+        String error = validate(bulkAdsRow);
+        if (error != null) {
+            return new PendingRow(BulkAdsResult.failed(row, error), null);
+        }
+        Ads ads = new Ads();
+        ads.setTitle(bulkAdsRow.getTitle());
+        ads.setDescription(bulkAdsRow.getDescription());
+        ads.setPrice(bulkAdsRow.getPrice());
+        ads.setImage(isBlank(bulkAdsRow.getImage()) ? null : IMAGE_PATH + bulkAdsRow.getImage());
+        ads.setCreatedAt(createdAt);
+        ads.setUser(user);
+        return new PendingRow(BulkAdsResult.created(row, null), ads);
+    }
+
+    private String validate(BulkAdsRow row) {
+        if (isBlank(row.getTitle())) {
+            return "Title is required";
+        }
+        if (row.getTitle().length() > MAX_TITLE_LENGTH) {
+            return "Title is longer than " + MAX_TITLE_LENGTH + " characters";
+        }
+        if (row.getPrice() != null && row.getPrice() < 0) {
+            return "Price must not be negative";
+        }
+        String image = row.getImage();
+        if (!isBlank(image) && (image.contains("/") || image.contains("\\") || !imageService.exists(image))) {
+            return "Image not found: " + image;
+        }
+        return null;
+    }
+
+    /**
+     * Сохраняет накопленные объявления и записывает результаты всех накопленных строк.
+     */
+    private void flush(List<PendingRow> pending, ObjectWriter writer, JsonGenerator generator) throws IOException {
+        List<PendingRow> toSave = pending.stream()
+                .filter(pendingRow -> pendingRow.ads != null)
+                .collect(Collectors.toList());
+        if (!toSave.isEmpty()) {
+            try {
+                List<Ads> adsList = toSave.stream().map(pendingRow -> pendingRow.ads).collect(Collectors.toList());
+                transactionTemplate.executeWithoutResult(status -> adsRepository.saveAll(adsList));
+            } catch (DataAccessException | TransactionException e) {
+                log.warn("Failed to save batch of {} ads, saving one by one: {}", toSave.size(), e.getMessage());
+                toSave.forEach(this::saveOne);
+            }
+            List<Ads> saved = toSave.stream()
+                    .filter(pendingRow -> pendingRow.result.getError() == null)
+                    .map(pendingRow -> pendingRow.ads)
+                    .collect(Collectors.toList());
+            saved.forEach(adsSearchIndex::index);
+            adsCounter.add(saved.size());
+            cacheInvalidationBus.adsChanged(saved.stream().map(Ads::getId).collect(Collectors.toList()));
+        }
+        for (PendingRow pendingRow : pending) {
+            if (pendingRow.ads != null && pendingRow.result.getError() == null) {
+                pendingRow.result.setPk(pendingRow.ads.getId());
+            }
+            writer.writeValue(generator, pendingRow.result);
+        }
+        generator.flush();
+        pending.clear();
+    }
+
+    private void saveOne(PendingRow pendingRow) {
+        pendingRow.ads.setId(null);
+        try {
+            transactionTemplate.executeWithoutResult(status -> adsRepository.save(pendingRow.ads));
+        } catch (DataAccessException | TransactionException e) {
+            log.warn("Failed to save ad from row {}: {}", pendingRow.result.getRow(), e.getMessage());
+            pendingRow.result.setError("Failed to save ad");
+        }
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    private static String rootMessage(Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof JsonProcessingException
+                ? ((JsonProcessingException) cause).getOriginalMessage()
+                : Objects.toString(cause.getMessage(), cause.getClass().getSimpleName());
+    }
+
+    /**
+     * Обработанная строка: результат и объявление для сохранения (null, если строка не прошла проверку).
+     */
+    private static class PendingRow {
+        private final BulkAdsResult result;
+        private final Ads ads;
+
+        PendingRow(BulkAdsResult result, Ads ads) {
+            this.result = result;
+            this.ads = ads;
+        }
+    }
+}
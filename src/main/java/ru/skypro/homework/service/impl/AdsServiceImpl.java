@@ -1,28 +1,59 @@
 package ru.skypro.homework.service.impl;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.cache.CacheInvalidationBus;
+import ru.skypro.homework.cache.FullAdsCache;
 import ru.skypro.homework.dto.*;
 import ru.skypro.homework.entity.Ads;
 import ru.skypro.homework.entity.Comment;
 import ru.skypro.homework.entity.User;
 import ru.skypro.homework.exception.AdsNotFoundException;
 import ru.skypro.homework.exception.CommentNotFoundException;
+import ru.skypro.homework.exception.InvalidBulkDeleteException;
+import ru.skypro.homework.exception.InvalidCursorException;
 import ru.skypro.homework.exception.UserWithEmailNotFoundException;
 import ru.skypro.homework.mapper.AdsMapper;
 import ru.skypro.homework.mapper.CommentMapper;
 import ru.skypro.homework.repository.AdsRepository;
+import ru.skypro.homework.repository.AdsSearchHit;
 import ru.skypro.homework.repository.CommentRepository;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.search.AdsSearchIndex;
+import ru.skypro.homework.search.SearchHit;
+import ru.skypro.homework.service.AdsCounter;
 import ru.skypro.homework.service.AdsService;
 import ru.skypro.homework.service.ImageService;
+import ru.skypro.homework.service.PageCursor;
+import ru.skypro.homework.service.PriceHistogram;
 
-import javax.transaction.Transactional;
+import javax.persistence.EntityManager;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Slf4j
 @Service
@@ -35,23 +66,245 @@ public class AdsServiceImpl implements AdsService {
     private final ImageService imageService;
     private final AdsMapper adsMapper;
     private final CommentMapper commentMapper;
+    private final AdsCounter adsCounter;
+    private final EntityManager entityManager;
+    private final ObjectMapper objectMapper;
+    private final AdsSearchIndex adsSearchIndex;
+    private final PriceHistogram priceHistogram;
+    private final FullAdsCache fullAdsCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
+
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int EXPORT_FLUSH_SIZE = 500;
+    private static final int MAX_BULK_DELETE_IDS = 1000;
+
+    @Value("${ads.search.full-text:true}")
+    private boolean fullTextSearch;
 
     /**
-     * Получить список всех объявлений.
-     * использует методы {@link AdsRepository#findAll()} и {@link AdsMapper#toDtos(List)}
+     * Получить страницу ленты объявлений с необязательным фильтром по цене.
+     * Использует keyset-пагинацию: следующая страница выбирается условием по ключу сортировки
+     * последнего объявления, поэтому стоимость запроса не зависит от глубины страницы.
+     * Без фильтра и при сортировке по идентификатору используется
+     * {@link AdsRepository#findByIdGreaterThanOrderByIdAsc(Integer, Pageable)} и {@link AdsCounter#get()},
+     * иначе {@link AdsRepository#findFeedPage(Integer, Integer, AdsSort, Object, Integer, int)} и
+     * {@link AdsRepository#countByPriceRange(Integer, Integer)}. Количество из {@link AdsCounter#get()} берется только
+     * без фильтра и без сортировки по цене: при ней объявления без цены не возвращаются и не учитываются.
+     * Вместе со страницей возвращается
+     * гистограмма цен {@link PriceHistogram#get()}.
      *
-     * @return Объект {@link ResponseWrapperAds} с оберткой содержащей список объявлений и статус ответа.
+     * @param minPrice Минимальная цена включительно или null.
+     * @param maxPrice Максимальная цена включительно или null.
+     * @param sort     Порядок объявлений; при сортировке по цене объявления без цены не возвращаются.
+     * @param cursor   Курсор, полученный в поле {@code next} предыдущей страницы, или null для первой страницы.
+     * @param size     Размер страницы, ограничивается значением {@value #MAX_PAGE_SIZE}.
+     * @return Объект {@link ResponseWrapperAds} со страницей объявлений, количеством подходящих объявлений,
+     * курсором следующей страницы (null, если страница последняя) и гистограммой цен.
+     * @throws InvalidCursorException Если курсор поврежден или получен для другого порядка.
      */
     @Override
-    public ResponseWrapperAds getAllAds() {
-        List<Ads> adsList = adsRepository.findAll();
-        List<AdsDto> adsDtoList = adsMapper.toDtos(adsList);
+    public ResponseWrapperAds getAllAds(Integer minPrice, Integer maxPrice, AdsSort sort, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        boolean filtered = minPrice != null || maxPrice != null;
+        List<Ads> adsList;
+        if (!filtered && sort == AdsSort.ID) {
+            int lastId = cursor == null ? 0 : PageCursor.decodeInt(cursor);
+            adsList = adsRepository.findByIdGreaterThanOrderByIdAsc(lastId, PageRequest.of(0, pageSize + 1));
+        } else {
+            Object lastKey = null;
+            Integer lastId = null;
+            if (cursor != null && sort == AdsSort.ID) {
+                lastId = PageCursor.decodeInt(cursor);
+            } else if (cursor != null) {
+                String[] keys = PageCursor.decode(cursor, 2);
+                try {
+                    lastKey = sort == AdsSort.PRICE ? Integer.valueOf(keys[0]) : LocalDateTime.parse(keys[0]);
+                    lastId = Integer.valueOf(keys[1]);
+                } catch (NumberFormatException | DateTimeParseException e) {
+                    throw new InvalidCursorException(cursor);
+                }
+            }
+            adsList = adsRepository.findFeedPage(minPrice, maxPrice, sort, lastKey, lastId, pageSize + 1);
+        }
+        boolean hasNext = adsList.size() > pageSize;
+        if (hasNext) {
+            adsList = adsList.subList(0, pageSize);
+        }
         ResponseWrapperAds responseWrapperAds = new ResponseWrapperAds();
-        responseWrapperAds.setCount(adsList.size());
-        responseWrapperAds.setResults(adsDtoList);
+        responseWrapperAds.setCount((int) (filtered || sort == AdsSort.PRICE
+                ? adsRepository.countByPriceRange(minPrice, maxPrice)
+                : adsCounter.get()));
+        responseWrapperAds.setResults(adsMapper.toDtos(adsList));
+        responseWrapperAds.setNext(hasNext ? toCursor(adsList.get(pageSize - 1), sort) : null);
+        responseWrapperAds.setPriceHistogram(priceHistogram.get());
+        return responseWrapperAds;
+    }
+
+    private static String toCursor(Ads ads, AdsSort sort) {
+        switch (sort) {
+            case PRICE:
+                return PageCursor.encode(ads.getPrice(), ads.getId());
+            case NEWEST:
+                return PageCursor.encode(ads.getCreatedAt(), ads.getId());
+            default:
+                return PageCursor.encode(ads.getId());
+        }
+    }
+
+    /**
+     * Выгружает все объявления в поток в виде JSON-массива {@link AdsDto}.
+     * Объявления читаются однонаправленным курсором JDBC через {@link AdsRepository#streamAllByOrderByIdAsc()},
+     * каждая запись преобразуется {@link AdsMapper#toAdsDto(Ads)} и сразу записывается потоковым генератором Jackson.
+     * Контекст персистентности очищается каждые {@value #EXPORT_FLUSH_SIZE} записей,
+     * поэтому потребление памяти не зависит от количества объявлений.
+     *
+     * @param outputStream Поток, в который записывается ответ.
+     * @throws IOException Если произошла ошибка записи в поток.
+     */
+    @Override
+    @Transactional(readOnly = true)
+    public void exportAds(OutputStream outputStream) throws IOException {
+        ObjectWriter writer = objectMapper.writerFor(AdsDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        try (Stream<Ads> adsStream = adsRepository.streamAllByOrderByIdAsc();
+             JsonGenerator generator = objectMapper.getFactory().createGenerator(outputStream)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            Iterator<Ads> iterator = adsStream.iterator();
+            int written = 0;
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, adsMapper.toAdsDto(iterator.next()));
+                if (++written % EXPORT_FLUSH_SIZE == 0) {
+                    entityManager.clear();
+                    generator.flush();
+                }
+            }
+            generator.writeEndArray();
+            log.trace("Exported {} ads", written);
+        }
+    }
+
+    /**
+     * Найти объявления по тексту заголовка и описания.
+     * <p>
+     * В PostgreSQL используется полнотекстовый поиск по столбцу {@code search_vector}
+     * ({@link AdsRepository#searchFullText(String, int)} и
+     * {@link AdsRepository#searchFullTextAfter(String, double, Integer, int)}): результаты упорядочены
+     * по убыванию ранга, курсор хранит ранг и идентификатор последнего объявления страницы.
+     * Если полнотекстовый поиск отключен свойством {@code ads.search.full-text}, используется
+     * {@link AdsRepository#searchByPattern(String, Integer, Pageable)} с сортировкой по убыванию идентификатора.
+     * Объявления преобразуются методом {@link AdsMapper#toAdsDto(Ads)}.
+     *
+     * @param query  Строка поиска.
+     * @param cursor Курсор, полученный в поле {@code next} предыдущей страницы, или null для первой страницы.
+     * @param size   Размер страницы, ограничивается значением {@value #MAX_PAGE_SIZE}.
+     * @return Объект {@link ResponseWrapperAds} со страницей найденных объявлений, их количеством на странице
+     * и курсором следующей страницы (null, если страница последняя).
+     * @throws InvalidCursorException Если курсор поврежден.
+     */
+    @Override
+    public ResponseWrapperAds searchAds(String query, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        ResponseWrapperAds responseWrapperAds = new ResponseWrapperAds();
+        if (query == null || query.isBlank()) {
+            responseWrapperAds.setResults(List.of());
+            return responseWrapperAds;
+        }
+        double lastRank = Double.MAX_VALUE;
+        int lastId = Integer.MAX_VALUE;
+        if (cursor != null) {
+            String[] keys = PageCursor.decode(cursor, 2);
+            try {
+                lastRank = Double.parseDouble(keys[0]);
+                lastId = Integer.parseInt(keys[1]);
+            } catch (NumberFormatException e) {
+                throw new InvalidCursorException(cursor);
+            }
+        }
+        List<AdsSearchHit> hits;
+        if (!fullTextSearch) {
+            hits = searchByPattern(query, lastId, pageSize + 1);
+        } else if (cursor == null) {
+            hits = adsRepository.searchFullText(query, pageSize + 1);
+        } else {
+            hits = adsRepository.searchFullTextAfter(query, lastRank, lastId, pageSize + 1);
+        }
+        boolean hasNext = hits.size() > pageSize;
+        if (hasNext) {
+            hits = hits.subList(0, pageSize);
+        }
+        List<AdsDto> results = toAdsDtos(hits.stream().map(AdsSearchHit::getId).collect(Collectors.toList()));
+        AdsSearchHit last = hits.isEmpty() ? null : hits.get(hits.size() - 1);
+        responseWrapperAds.setCount(results.size());
+        responseWrapperAds.setResults(results);
+        responseWrapperAds.setNext(hasNext ? PageCursor.encode(last.getRank(), last.getId()) : null);
         return responseWrapperAds;
     }
 
+    /**
+     * Найти объявления по мере набора строки поиска.
+     * Если включен встроенный индекс {@link AdsSearchIndex}, последнее слово запроса ищется по префиксу,
+     * а объявления ранжируются по BM25 без обращения к базе данных; иначе возвращается
+     * первая страница {@link #searchAds(String, String, int)}.
+     *
+     * @param query Строка поиска.
+     * @param size  Количество результатов, ограничивается значением {@value #MAX_PAGE_SIZE}.
+     * @return Объект {@link ResponseWrapperAds} с найденными объявлениями.
+     */
+    @Override
+    public ResponseWrapperAds suggestAds(String query, int size) {
+        if (!adsSearchIndex.isEnabled()) {
+            return searchAds(query, null, size);
+        }
+        int limit = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        List<AdsDto> results = toAdsDtos(adsSearchIndex.search(query, limit).stream()
+                .map(SearchHit::getId)
+                .collect(Collectors.toList()));
+        ResponseWrapperAds responseWrapperAds = new ResponseWrapperAds();
+        responseWrapperAds.setCount(results.size());
+        responseWrapperAds.setResults(results);
+        return responseWrapperAds;
+    }
+
+    /**
+     * Загружает объявления одним запросом и возвращает их DTO в порядке переданных идентификаторов.
+     */
+    private List<AdsDto> toAdsDtos(List<Integer> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Integer, Ads> adsById = adsRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Ads::getId, Function.identity()));
+        return ids.stream()
+                .map(adsById::get)
+                .filter(Objects::nonNull)
+                .map(adsMapper::toAdsDto)
+                .collect(Collectors.toList());
+    }
+
+    private List<AdsSearchHit> searchByPattern(String query, int lastId, int limit) {
+        String pattern = "%" + query.toLowerCase()
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_") + "%";
+        return adsRepository.searchByPattern(pattern, lastId, PageRequest.of(0, limit)).stream()
+                .map(PatternSearchHit::new)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Результат поиска по подстроке: ранг у всех найденных объявлений одинаковый.
+     */
+    @Getter
+    private static class PatternSearchHit implements AdsSearchHit {
+        private final Integer id;
+        private final Double rank = 0.0;
+
+        PatternSearchHit(Ads ads) {
+            this.id = ads.getId();
+        }
+    }
+
     /**
      * Получает список объявлений, принадлежащих пользователю с указанным адресом электронной почты.
      * Использует методы {@link AdsRepository#findByUser(User)} и {@link AdsMapper#toDtos(List)}.
@@ -89,13 +342,18 @@ public class AdsServiceImpl implements AdsService {
         ads.setUser(userRepository.findByEmail(email)
                 .orElseThrow(() -> new UserWithEmailNotFoundException(email)));
         ads.setImage(imageService.saveImage(image, "/ads"));
+        ads.setCreatedAt(LocalDateTime.now());
         adsRepository.save(ads);
+        adsCounter.increment();
+        adsSearchIndex.index(ads);
+        cacheInvalidationBus.adsChanged(ads.getId());
         return adsMapper.toAdsDto(ads);
     }
 
     /**
      * Получает полную информацию об объявлении по его идентификатору.
-     * Использует методы {@link AdsRepository#findById(Object)} и {@link AdsMapper#toFullAds(Ads)}.
+     * Использует метод {@link AdsRepository#findFullAdsById(Integer)}, который получает
+     * объявление вместе с данными автора одним запросом.
      *
      * @param id Идентификатор объявления, для которого нужно получить полную информацию.
      * @return Объект типа FullAds, содержащий полную информацию об объявлении.
@@ -103,9 +361,21 @@ public class AdsServiceImpl implements AdsService {
      */
     @Override
     public FullAds getAds(Integer id) {
-        Ads ads = adsRepository.findById(id)
+        return adsRepository.findFullAdsById(id)
                 .orElseThrow(() -> new AdsNotFoundException("Ads not found by id: " + id));
-        return adsMapper.toFullAds(ads);
+    }
+
+    /**
+     * Получает полную информацию об объявлении в виде готового JSON.
+     * Использует кэш {@link FullAdsCache}; при промахе информация загружается методом {@link #getAds(Integer)}.
+     *
+     * @param id Идентификатор объявления.
+     * @return JSON объекта FullAds.
+     * @throws AdsNotFoundException Если объявление с указанным идентификатором не найдено.
+     */
+    @Override
+    public byte[] getAdsJson(Integer id) {
+        return fullAdsCache.get(id, this::getAds);
     }
 
     /**
@@ -113,11 +383,11 @@ public class AdsServiceImpl implements AdsService {
      * Метод помечен аннотацией {@link org.springframework.transaction.annotation.Transactional},
      * что обозначает транзакционное выполнение данного метода.
      * <p>
-     * Использует методы:
-     * {@link CommentRepository#deleteAllByAds_Id(Integer)},
-     * {@link AdsRepository#findById(Object)},
-     * {@link ImageService#deleteFileIfNotNull(String)} и
-     * {@link AdsRepository#delete(Object)}.
+     * Комментарии объявления удаляются одним запросом {@link CommentRepository#deleteByAdsId(Integer)}
+     * без загрузки, затем удаляется само объявление ({@link AdsRepository#findById(Object)} и
+     * {@link AdsRepository#delete(Object)}). Файл изображения ({@link ImageService#deleteFileIfNotNull(String)}),
+     * счетчик, поисковый индекс и кэши обновляются только после фиксации транзакции, поэтому при ее откате
+     * объявление не остается без изображения.
      *
      * @param id Идентификатор объявления, которое нужно удалить.
      * @throws AdsNotFoundException Если объявление с указанным идентификатором не найдено.
@@ -125,12 +395,35 @@ public class AdsServiceImpl implements AdsService {
     @Transactional
     @Override
     public void removeAd(Integer id) {
-        commentRepository.deleteAllByAds_Id(id);
         Ads ads = adsRepository.findById(id)
                 .orElseThrow(() -> new AdsNotFoundException("Ads not found by id: " + id));
-        imageService.deleteFileIfNotNull(ads.getImage());
-        log.trace("Removed Ads with id: ", id);
+        int comments = commentRepository.deleteByAdsId(id);
         adsRepository.delete(ads);
+        log.trace("Removed Ads with id: {} and {} comments", id, comments);
+        String image = ads.getImage();
+        afterCommit(() -> {
+            imageService.deleteFileIfNotNull(image);
+            adsCounter.decrement();
+            adsSearchIndex.remove(id);
+        });
+        fullAdsCache.invalidate(id);
+        cacheInvalidationBus.adsChanged(id);
+    }
+
+    /**
+     * Выполняет действие после фиксации текущей транзакции или сразу, если транзакции нет.
+     */
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
     }
 
 
@@ -153,29 +446,71 @@ public class AdsServiceImpl implements AdsService {
                 .orElseThrow(() -> new AdsNotFoundException("Ads not found by id: " + id));
         adsMapper.updateAds(createAds, ads);
         adsRepository.save(ads);
+        adsSearchIndex.index(ads);
+        fullAdsCache.invalidate(id);
+        cacheInvalidationBus.adsChanged(id);
         log.trace("Updated Ads with id: ", id);
         return adsMapper.toAdsDto(ads);
     }
 
     /**
-     * Получает список комментариев к объявлению по его идентификатору.
-     * Использует методы:
-     * {@link CommentRepository#findAllByAdsId(Integer)},
-     * {@link CommentMapper#toListDto(List)}.
+     * Получает страницу комментариев к объявлению, упорядоченных по времени создания.
+     * Использует keyset-пагинацию по ключу ({@code createdAt}, {@code id}):
+     * {@link CommentRepository#findCommentDtosByAdsId(Integer, Pageable)} для первой страницы и
+     * {@link CommentRepository#findCommentDtosByAdsIdAfter(Integer, LocalDateTime, Integer, Pageable)}
+     * для последующих.
+     * <p>
+     * Общее количество комментариев возвращается только для первой страницы: если она вмещает все комментарии,
+     * количество равно ее размеру, иначе выполняется {@link CommentRepository#countByAdsId(Integer)}.
+     * Запрос с курсором (в том числе периодический запрос новых комментариев) выполняет один SQL-запрос
+     * и возвращает количество null.
+     * <p>
+     * Курсор {@code latest} ответа указывает на самый новый из полученных комментариев
+     * (или совпадает с переданным курсором, если новых нет), поэтому клиент может
+     * периодически запрашивать только новые комментарии.
      *
-     * @param id Идентификатор объявления, для которого нужно получить комментарии.
-     * @return Объект ResponseWrapperComment с оберткой, содержащей список DTO комментариев и количество комментариев.
+     * @param id     Идентификатор объявления, для которого нужно получить комментарии.
+     * @param cursor Курсор {@code next} или {@code latest} предыдущего ответа, или null для первой страницы.
+     * @param size   Размер страницы, ограничивается значением {@value #MAX_PAGE_SIZE}.
+     * @return Объект ResponseWrapperComment со страницей комментариев, общим количеством комментариев
+     * (только для первой страницы) и курсорами следующей страницы (null, если страница последняя) и последнего комментария.
+     * @throws InvalidCursorException Если курсор поврежден.
      */
     @Override
-    public ResponseWrapperComment getComments(Integer id) {
-        List<Comment> commentList = commentRepository.findAllByAdsId(id);
-        List<CommentDto> commentDtos = commentMapper.toListDto(commentList);
+    public ResponseWrapperComment getComments(Integer id, String cursor, int size) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        Pageable pageable = PageRequest.of(0, pageSize + 1);
+        List<CommentDto> commentDtos;
+        if (cursor == null) {
+            commentDtos = commentRepository.findCommentDtosByAdsId(id, pageable);
+        } else {
+            String[] keys = PageCursor.decode(cursor, 2);
+            try {
+                commentDtos = commentRepository.findCommentDtosByAdsIdAfter(id,
+                        LocalDateTime.parse(keys[0]), Integer.valueOf(keys[1]), pageable);
+            } catch (DateTimeParseException | NumberFormatException e) {
+                throw new InvalidCursorException(cursor);
+            }
+        }
+        boolean hasNext = commentDtos.size() > pageSize;
+        if (hasNext) {
+            commentDtos = commentDtos.subList(0, pageSize);
+        }
+        String latest = commentDtos.isEmpty() ? cursor : toCursor(commentDtos.get(commentDtos.size() - 1));
         ResponseWrapperComment responseWrapperComment = new ResponseWrapperComment();
         responseWrapperComment.setResults(commentDtos);
-        responseWrapperComment.setCount(commentDtos.size());
+        if (cursor == null) {
+            responseWrapperComment.setCount(hasNext ? (int) commentRepository.countByAdsId(id) : commentDtos.size());
+        }
+        responseWrapperComment.setNext(hasNext ? latest : null);
+        responseWrapperComment.setLatest(latest);
         return responseWrapperComment;
     }
 
+    private static String toCursor(CommentDto commentDto) {
+        return PageCursor.encode(commentDto.getCreatedAt(), commentDto.getPk());
+    }
+
     /**
      * Добавляет новый комментарий к объявлению.
      * Использует методы:
@@ -221,6 +556,61 @@ public class AdsServiceImpl implements AdsService {
         log.trace("Deleted comment with id: ", id);
     }
 
+    /**
+     * Удаляет комментарии по списку идентификаторов одним запросом
+     * {@link CommentRepository#deleteByIdIn(java.util.Collection)}.
+     *
+     * @param ids Идентификаторы комментариев, не более {@value #MAX_BULK_DELETE_IDS}.
+     * @return Объект BulkDeleteResult с количеством удаленных комментариев.
+     * @throws InvalidBulkDeleteException Если список пуст или длиннее допустимого.
+     */
+    @Override
+    @Transactional
+    public BulkDeleteResult deleteComments(List<Integer> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new InvalidBulkDeleteException("Comment ids are required");
+        }
+        if (ids.size() > MAX_BULK_DELETE_IDS) {
+            throw new InvalidBulkDeleteException("At most " + MAX_BULK_DELETE_IDS + " comment ids are allowed");
+        }
+        int deleted = commentRepository.deleteByIdIn(ids);
+        log.trace("Deleted {} comments by ids", deleted);
+        return new BulkDeleteResult(deleted);
+    }
+
+    /**
+     * Удаляет все комментарии автора одним запросом {@link CommentRepository#deleteByUserId(Integer)}.
+     *
+     * @param authorId Идентификатор автора комментариев.
+     * @return Объект BulkDeleteResult с количеством удаленных комментариев.
+     */
+    @Override
+    @Transactional
+    public BulkDeleteResult deleteCommentsByAuthor(Integer authorId) {
+        int deleted = commentRepository.deleteByUserId(authorId);
+        log.trace("Deleted {} comments of user {}", deleted, authorId);
+        return new BulkDeleteResult(deleted);
+    }
+
+    /**
+     * Удаляет комментарии объявления одним запросом: созданные не раньше {@code since}
+     * ({@link CommentRepository#deleteByAdsIdSince(Integer, LocalDateTime)}) или все
+     * ({@link CommentRepository#deleteByAdsId(Integer)}), если время не указано.
+     *
+     * @param adId  Идентификатор объявления.
+     * @param since Время, начиная с которого удаляются комментарии, или null.
+     * @return Объект BulkDeleteResult с количеством удаленных комментариев.
+     */
+    @Override
+    @Transactional
+    public BulkDeleteResult deleteCommentsByAds(Integer adId, LocalDateTime since) {
+        int deleted = since == null
+                ? commentRepository.deleteByAdsId(adId)
+                : commentRepository.deleteByAdsIdSince(adId, since);
+        log.trace("Deleted {} comments of ads {}", deleted, adId);
+        return new BulkDeleteResult(deleted);
+    }
+
     /**
      * Обновляет текст комментария по идентификаторам объявления и комментария.
      * <p>
@@ -250,9 +640,11 @@ public class AdsServiceImpl implements AdsService {
      * <p>
      * Использует методы:
      * {@link AdsRepository#findById(Object)},
-     * {@link ImageService#deleteFileIfNotNull(String)},
-     * {@link ImageService#saveImage(MultipartFile, String)} и
-     * {@link AdsRepository#save(Object)}.
+     * {@link ImageService#saveImage(MultipartFile, String)},
+     * {@link AdsRepository#save(Object)} и
+     * {@link ImageService#deleteFileIfNotNull(String)}.
+     * Прежнее изображение удаляется после сохранения объявления, когда на него уже не ссылается
+     * это объявление, и только если на него не ссылаются другие объявления и пользователи.
      *
      * @param id    Идентификатор объявления, для которого нужно обновить изображение.
      * @param image Объект MultipartFile с новым изображением объявления.
@@ -262,23 +654,26 @@ public class AdsServiceImpl implements AdsService {
     public void updateAdsImage(Integer id, MultipartFile image) {
         Ads ads = adsRepository.findById(id)
                 .orElseThrow(() -> new AdsNotFoundException("Ads not found"));
-        imageService.deleteFileIfNotNull(ads.getImage());
+        String oldImage = ads.getImage();
         ads.setImage(imageService.saveImage(image, "/ads"));
         adsRepository.save(ads);
+        imageService.deleteFileIfNotNull(oldImage);
+        fullAdsCache.invalidate(id);
+        cacheInvalidationBus.adsChanged(id);
     }
 
     /**
      * Получает изображение по его имени.
      * <p>
-     * Использует метод {@link ImageService#getImage(String)} для получения изображения по имени.
+     * Использует метод {@link ImageService#getImage(String, ImageSize)} для получения изображения по имени.
      *
      * @param name Имя изображения, которое нужно получить.
-     * @return Массив байтов, представляющий изображение.
-     * @throws IOException Если произошла ошибка при получении изображения.
+     * @param size Запрошенный размер изображения.
+     * @return Ресурс с изображением или {@link Optional#empty()}, если изображение не найдено.
      */
     @Override
-    public byte[] getImage(String name) throws IOException {
-        return imageService.getImage(name);
+    public Optional<Resource> getImage(String name, ImageSize size) {
+        return imageService.getImage(name, size);
     }
 
     /**
@@ -300,9 +695,17 @@ public class AdsServiceImpl implements AdsService {
         return commentMapper.toCommentDtoFromComment(comment);
     }
 
+    /**
+     * Получает адрес электронной почты автора комментария для проверки прав доступа.
+     * Использует метод {@link CommentRepository#findAuthorEmailById(Integer)}, который
+     * не загружает ни комментарий, ни пользователя.
+     *
+     * @param id Идентификатор комментария.
+     * @return Адрес электронной почты автора.
+     * @throws CommentNotFoundException Если комментарий не найден.
+     */
     public String getUserNameOfComment(Integer id) {
-        return commentRepository.findById(id)
-                .orElseThrow(() -> new CommentNotFoundException("Comment not found"))
-                .getUser().getEmail();
+        return commentRepository.findAuthorEmailById(id)
+                .orElseThrow(() -> new CommentNotFoundException("Comment not found"));
     }
 }
@@ -4,11 +4,14 @@ import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import ru.skypro.homework.dto.AuthTokens;
 import ru.skypro.homework.dto.Register;
 import ru.skypro.homework.dto.Role;
 import ru.skypro.homework.entity.User;
 import ru.skypro.homework.mapper.UserMapper;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.security.TokenClaims;
+import ru.skypro.homework.security.TokenService;
 import ru.skypro.homework.service.AuthService;
 
 import java.util.Optional;
@@ -21,25 +24,55 @@ public class AuthServiceImpl implements AuthService {
     private final UserRepository userRepository;
     private final PasswordEncoder encoder;
     private final UserMapper userMapper;
+    private final TokenService tokenService;
 
     /**
-     * Проверяет аутентификацию пользователя.
+     * Проверяет аутентификацию пользователя и выдает ему токены.
      * Использует методы:
      * {@link UserRepository#findByEmail(String)},
-     * {@link PasswordEncoder#matches(CharSequence, String)}.
+     * {@link PasswordEncoder#matches(CharSequence, String)},
+     * {@link TokenService#issueTokens(String, Role, String)}.
      *
      * @param userName Имя пользователя (адрес электронной почты).
      * @param password Пароль пользователя.
-     * @return true, если пользователь аутентифицирован успешно, иначе false.
+     * @return Токен доступа и токен обновления, если пользователь аутентифицирован успешно,
+     * иначе {@link Optional#empty()}.
      */
     @Override
-    public boolean login(String userName, String password) {
+    public Optional<AuthTokens> login(String userName, String password) {
         Optional<User> optionalUser = userRepository.findByEmail(userName);
         if (optionalUser.isEmpty()) {
             log.debug("User not found");
-            return false;
+            return Optional.empty();
+        }
+        User user = optionalUser.get();
+        if (!encoder.matches(password, user.getPassword())) {
+            return Optional.empty();
+        }
+        return Optional.of(tokenService.issueTokens(user.getEmail(), user.getRole(), user.getPassword()));
+    }
+
+    /**
+     * Выдает новую пару токенов по токену обновления.
+     * Токен обновления принимается, только если с момента его выдачи пароль пользователя не менялся.
+     * Использует методы:
+     * {@link TokenService#parseRefreshToken(String)},
+     * {@link UserRepository#findByEmail(String)},
+     * {@link TokenService#issueTokens(String, Role, String)}.
+     *
+     * @param refreshToken Токен обновления.
+     * @return Новая пара токенов или {@link Optional#empty()}, если токен недействителен.
+     */
+    @Override
+    public Optional<AuthTokens> refresh(String refreshToken) {
+        Optional<TokenClaims> claims = tokenService.parseRefreshToken(refreshToken);
+        if (claims.isEmpty()) {
+            log.debug("Invalid refresh token");
+            return Optional.empty();
         }
-        return encoder.matches(password, optionalUser.get().getPassword());
+        return userRepository.findByEmail(claims.get().getSubject())
+                .filter(user -> tokenService.fingerprint(user.getPassword()).equals(claims.get().getFingerprint()))
+                .map(user -> tokenService.issueTokens(user.getEmail(), user.getRole(), user.getPassword()));
     }
 
     /**
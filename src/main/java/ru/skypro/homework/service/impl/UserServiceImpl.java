@@ -3,19 +3,26 @@ package ru.skypro.homework.service.impl;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.core.io.Resource;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.cache.CacheInvalidationBus;
+import ru.skypro.homework.cache.FullAdsCache;
+import ru.skypro.homework.dto.ImageSize;
 import ru.skypro.homework.dto.NewPassword;
 import ru.skypro.homework.dto.UserDto;
 import ru.skypro.homework.entity.User;
 import ru.skypro.homework.exception.UserNotFoundException;
 import ru.skypro.homework.exception.UserWithEmailNotFoundException;
 import ru.skypro.homework.mapper.UserMapper;
+import ru.skypro.homework.repository.AdsRepository;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.security.CredentialsCache;
+import ru.skypro.homework.security.MyUserDetailsService;
 import ru.skypro.homework.service.ImageService;
 import ru.skypro.homework.service.UserService;
 
-import java.io.IOException;
+import java.util.List;
 import java.util.Optional;
 
 @Slf4j
@@ -27,13 +34,21 @@ public class UserServiceImpl implements UserService {
     private final PasswordEncoder encoder;
     private final ImageService imageService;
     private final UserMapper userMapper;
+    private final CredentialsCache credentialsCache;
+    private final MyUserDetailsService myUserDetailsService;
+    private final AdsRepository adsRepository;
+    private final FullAdsCache fullAdsCache;
+    private final CacheInvalidationBus cacheInvalidationBus;
 
     /**
      * Устанавливает новый пароль пользователю.
      * Использует методы:
      * {@link UserRepository#findByEmail(String)},
      * {@link PasswordEncoder#matches(CharSequence, String)},
-     * {@link UserRepository#save(Object)}.
+     * {@link UserRepository#save(Object)},
+     * {@link CredentialsCache#invalidate(String)},
+     * {@link MyUserDetailsService#evict(String)},
+     * {@link CacheInvalidationBus#userChanged(String)}.
      *
      * @param newPassword Объект NewPassword с данными для установки нового пароля.
      * @param email       Адрес электронной почты пользователя.
@@ -47,6 +62,9 @@ public class UserServiceImpl implements UserService {
             if (encoder.matches(newPassword.getCurrentPassword(), user.getPassword())) {
                 user.setPassword(encoder.encode(newPassword.getNewPassword()));
                 userRepository.save(user);
+                credentialsCache.invalidate(email);
+                myUserDetailsService.evict(email);
+                cacheInvalidationBus.userChanged(email);
                 log.trace("Updated password");
                 return true;
             }
@@ -80,6 +98,9 @@ public class UserServiceImpl implements UserService {
      * {@link UserNotFoundException(String)},
      * {@link UserMapper#updateUserFromUserDto(UserDto, User)},
      * {@link UserRepository#save(Object)}.
+     * Данные пользователя удаляются из кэшей аутентификации, так как может измениться адрес электронной почты,
+     * а объявления пользователя — из {@link FullAdsCache}, так как они содержат его контактные данные.
+     * Другие экземпляры приложения оповещаются через {@link CacheInvalidationBus}.
      *
      * @param userDto Объект UserDto с обновленными данными пользователя.
      * @param email   Адрес электронной почты пользователя.
@@ -92,6 +113,12 @@ public class UserServiceImpl implements UserService {
                 .orElseThrow(() -> new UserNotFoundException(email));
         userMapper.updateUserFromUserDto(userDto, user);
         userRepository.save(user);
+        credentialsCache.invalidate(email);
+        myUserDetailsService.evict(email);
+        List<Integer> adsIds = adsRepository.findIdsByUserId(user.getId());
+        fullAdsCache.invalidateAll(adsIds);
+        cacheInvalidationBus.userChanged(email);
+        cacheInvalidationBus.adsChanged(adsIds);
         log.trace("User updated");
         return userMapper.toUserDto(user);
     }
@@ -101,9 +128,12 @@ public class UserServiceImpl implements UserService {
      * Использует методы:
      * {@link UserRepository#findByEmail(String)},
      * {@link UserWithEmailNotFoundException(String)},
-     * {@link ImageService#deleteFileIfNotNull(String)},
      * {@link ImageService#saveImage(MultipartFile, String)},
-     * {@link UserRepository#save(Object)}.
+     * {@link UserRepository#save(Object)},
+     * {@link ImageService#deleteFileIfNotNull(String)}.
+     * Прежний аватар удаляется после сохранения пользователя и только если на него больше никто не ссылается.
+     * Другие экземпляры приложения оповещаются через {@link CacheInvalidationBus}, чтобы в их кэшах
+     * не остался путь к прежнему аватару.
      *
      * @param image Объект MultipartFile с новым аватаром пользователя.
      * @param email Адрес электронной почты пользователя.
@@ -113,22 +143,24 @@ public class UserServiceImpl implements UserService {
     public void updateAvatar(MultipartFile image, String email) {
         User user = userRepository.findByEmail(email)
                 .orElseThrow(() -> new UserWithEmailNotFoundException(email));
-        imageService.deleteFileIfNotNull(user.getImage());
+        String oldImage = user.getImage();
         user.setImage(imageService.saveImage(image, "/users"));
         userRepository.save(user);
+        cacheInvalidationBus.userChanged(email);
+        imageService.deleteFileIfNotNull(oldImage);
         log.trace("Avatar updated");
     }
 
     /**
      * Получает изображение по его имени.
-     * Использует метод {@link ImageService#getImage(String)} для получения изображения по имени.
+     * Использует метод {@link ImageService#getImage(String, ImageSize)} для получения изображения по имени.
      *
      * @param name Имя изображения, которое нужно получить.
-     * @return Массив байтов, представляющий изображение.
-     * @throws IOException Если произошла ошибка при получении изображения.
+     * @param size Запрошенный размер изображения.
+     * @return Ресурс с изображением или {@link Optional#empty()}, если изображение не найдено.
      */
     @Override
-    public byte[] getImage(String name) throws IOException {
-        return imageService.getImage(name);
+    public Optional<Resource> getImage(String name, ImageSize size) {
+        return imageService.getImage(name, size);
     }
 }
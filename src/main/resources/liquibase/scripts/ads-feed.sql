@@ -0,0 +1,11 @@
+-- liquibase formatted sql
+
+-- changeset northin:13
+ALTER TABLE ads
+    ADD COLUMN created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP NOT NULL;
+
+-- changeset northin:14
+CREATE INDEX ads_price_id_idx ON ads (price, id);
+
+-- changeset northin:15
+CREATE INDEX ads_created_at_id_idx ON ads (created_at, id);
@@ -0,0 +1,22 @@
+-- liquibase formatted sql
+
+-- changeset northin:5 dbms:postgresql
+CREATE UNIQUE INDEX users_email_lower_uidx ON users (lower(email));
+
+-- changeset northin:6 dbms:!postgresql
+CREATE UNIQUE INDEX users_email_lower_uidx ON users (email);
+
+-- changeset northin:7
+CREATE INDEX ads_user_id_idx ON ads (user_id);
+
+-- changeset northin:8
+CREATE INDEX comments_ads_id_created_at_idx ON comments (ads_id, created_at);
+
+-- changeset northin:9
+CREATE INDEX comments_user_id_idx ON comments (user_id);
+
+-- changeset northin:19
+CREATE INDEX ads_image_idx ON ads (image);
+
+-- changeset northin:20
+CREATE INDEX users_image_idx ON users (image);
@@ -0,0 +1,28 @@
+-- liquibase formatted sql
+
+-- changeset northin:10 dbms:postgresql
+ALTER TABLE ads
+    ADD COLUMN search_vector TSVECTOR;
+
+UPDATE ads
+SET search_vector = setweight(to_tsvector('russian', coalesce(title, '')), 'A') ||
+                    setweight(to_tsvector('russian', coalesce(description, '')), 'B');
+
+-- changeset northin:11 dbms:postgresql splitStatements:false
+CREATE FUNCTION ads_search_vector_update() RETURNS TRIGGER AS
+$$
+BEGIN
+    NEW.search_vector := setweight(to_tsvector('russian', coalesce(NEW.title, '')), 'A') ||
+                         setweight(to_tsvector('russian', coalesce(NEW.description, '')), 'B');
+    RETURN NEW;
+END
+$$ LANGUAGE plpgsql;
+
+CREATE TRIGGER ads_search_vector_trigger
+    BEFORE INSERT OR UPDATE OF title, description
+    ON ads
+    FOR EACH ROW
+EXECUTE PROCEDURE ads_search_vector_update();
+
+-- changeset northin:12 dbms:postgresql
+CREATE INDEX ads_search_vector_idx ON ads USING GIN (search_vector);
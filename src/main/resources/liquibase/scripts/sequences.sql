@@ -0,0 +1,19 @@
+-- liquibase formatted sql
+
+-- changeset northin:16
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE ads_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE comments_seq START WITH 1 INCREMENT BY 50;
+
+-- changeset northin:17 dbms:postgresql
+SELECT setval('users_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM users), false);
+SELECT setval('ads_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM ads), false);
+SELECT setval('comments_seq', (SELECT COALESCE(MAX(id), 0) + 1 FROM comments), false);
+
+-- changeset northin:18 dbms:postgresql
+ALTER TABLE users ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE ads ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE comments ALTER COLUMN id DROP DEFAULT;
+DROP SEQUENCE users_id_seq;
+DROP SEQUENCE ads_id_seq;
+DROP SEQUENCE comments_id_seq;
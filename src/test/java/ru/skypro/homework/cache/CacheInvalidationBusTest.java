@@ -0,0 +1,82 @@
+package ru.skypro.homework.cache;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CacheInvalidationBusTest {
+
+    private final List<Object> firstNodeEvents = new ArrayList<>();
+    private final List<Object> secondNodeEvents = new ArrayList<>();
+    private CacheInvalidationBus firstNode;
+
+    @BeforeEach
+    void setUp() {
+        LocalInvalidationTransport transport = new LocalInvalidationTransport();
+        firstNode = new CacheInvalidationBus(transport, firstNodeEvents::add);
+        new CacheInvalidationBus(transport, secondNodeEvents::add);
+    }
+
+    @Test
+    void testChangesAreDeliveredToOtherNodesOnly() {
+        firstNode.adsChanged(List.of(1, 2));
+        firstNode.userChanged("User@Example.com");
+
+        assertTrue(firstNodeEvents.isEmpty());
+        assertEquals(List.of(
+                new CacheInvalidationEvent(CacheInvalidationEvent.Type.ADS, List.of("1", "2")),
+                new CacheInvalidationEvent(CacheInvalidationEvent.Type.USER, List.of("user@example.com"))
+        ), secondNodeEvents);
+    }
+
+    @Test
+    void testChangesInsideTransactionAreSentAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            firstNode.adsChanged(1);
+            assertTrue(secondNodeEvents.isEmpty());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            assertEquals(1, secondNodeEvents.size());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testLargeChangesAreSplitIntoBoundedPayloads() {
+        List<String> keys = IntStream.range(0, 5000).mapToObj(String::valueOf).collect(Collectors.toList());
+
+        List<String> payloads = firstNode.encode(CacheInvalidationEvent.Type.ADS, keys);
+        firstNode.adsChanged(IntStream.range(0, 5000).boxed().collect(Collectors.toList()));
+
+        assertTrue(payloads.size() > 1);
+        payloads.forEach(payload -> assertTrue(payload.length() <= CacheInvalidationBus.MAX_PAYLOAD_BYTES));
+        assertEquals(keys, secondNodeEvents.stream()
+                .flatMap(event -> ((CacheInvalidationEvent) event).getKeys().stream())
+                .collect(Collectors.toList()));
+    }
+
+    @Test
+    void testResetInvalidatesEverything() {
+        firstNode.onReset();
+
+        assertEquals(List.of(new CacheInvalidationEvent(CacheInvalidationEvent.Type.ALL, List.of())), firstNodeEvents);
+    }
+
+    @Test
+    void testMalformedPayloadIsIgnored() {
+        firstNode.onMessage("garbage");
+        firstNode.onMessage("other-node\nUNKNOWN\n1");
+
+        assertTrue(firstNodeEvents.isEmpty());
+    }
+}
@@ -0,0 +1,118 @@
+package ru.skypro.homework.cache;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.skypro.homework.dto.FullAds;
+import ru.skypro.homework.exception.AdsNotFoundException;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FullAdsCacheTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final AtomicInteger loads = new AtomicInteger();
+    private FullAdsCache fullAdsCache;
+
+    @BeforeEach
+    void setUp() {
+        fullAdsCache = new FullAdsCache(objectMapper, meterRegistry, 1024 * 1024, Duration.ofMinutes(10));
+    }
+
+    @Test
+    void testGetStoresSerializedJson() throws IOException {
+        byte[] first = fullAdsCache.get(1, loader());
+        byte[] second = fullAdsCache.get(1, loader());
+
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals("Ad 1", objectMapper.readValue(first, FullAds.class).getTitle());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "fullAds").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testInvalidateReloads() {
+        fullAdsCache.get(1, loader());
+        fullAdsCache.get(2, loader());
+
+        fullAdsCache.invalidateAll(List.of(1));
+        fullAdsCache.get(1, loader());
+        fullAdsCache.get(2, loader());
+
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    void testEntryExpiresWithoutInvalidation() throws InterruptedException {
+        fullAdsCache = new FullAdsCache(objectMapper, meterRegistry, 1024 * 1024, Duration.ofMillis(50));
+        fullAdsCache.get(1, loader());
+
+        Thread.sleep(100);
+        fullAdsCache.get(1, loader());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testMissingAdsIsNotCached() {
+        Function<Integer, FullAds> failing = id -> {
+            loads.incrementAndGet();
+            throw new AdsNotFoundException("Ads not found by id: " + id);
+        };
+
+        assertThrows(AdsNotFoundException.class, () -> fullAdsCache.get(1, failing));
+        assertThrows(AdsNotFoundException.class, () -> fullAdsCache.get(1, failing));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testInvalidateInsideTransactionRepeatsAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            fullAdsCache.invalidate(1);
+            fullAdsCache.get(1, loader());
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            fullAdsCache.get(1, loader());
+
+            assertEquals(2, loads.get());
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testInvalidationEventFromOtherNode() {
+        fullAdsCache.get(1, loader());
+        fullAdsCache.get(2, loader());
+
+        fullAdsCache.onInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Type.ADS, List.of("1")));
+        fullAdsCache.get(1, loader());
+        fullAdsCache.get(2, loader());
+        fullAdsCache.onInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Type.ALL, List.of()));
+        fullAdsCache.get(2, loader());
+
+        assertEquals(4, loads.get());
+    }
+
+    private Function<Integer, FullAds> loader() {
+        return id -> {
+            loads.incrementAndGet();
+            FullAds fullAds = new FullAds();
+            fullAds.setPk(id);
+            fullAds.setTitle("Ad " + id);
+            return fullAds;
+        };
+    }
+}
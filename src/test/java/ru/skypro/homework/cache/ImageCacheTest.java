@@ -0,0 +1,89 @@
+package ru.skypro.homework.cache;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageCacheTest {
+
+    @TempDir
+    Path imageDir;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ImageCache imageCache;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        imageCache = new ImageCache(meterRegistry, true, 1024, 100, 2, Duration.ofMinutes(10));
+        file = Files.write(imageDir.resolve("hot.png"), new byte[]{1, 2, 3, 4, 5});
+    }
+
+    @Test
+    void testImageIsCachedAfterRepeatedRequests() throws IOException {
+        assertTrue(imageCache.load("hot.png", file) instanceof FileSystemResource);
+        assertTrue(imageCache.get("hot.png").isEmpty());
+
+        Resource loaded = imageCache.load("hot.png", file);
+        Files.delete(file);
+        Resource cached = imageCache.get("hot.png").orElseThrow();
+
+        assertTrue(loaded instanceof CachedImageResource);
+        assertEquals("hot.png", cached.getFilename());
+        assertEquals(5, cached.contentLength());
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, read(cached));
+        assertArrayEquals(new byte[]{1, 2, 3, 4, 5}, read(cached));
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "images").tag("result", "hit")
+                .functionCounter().count());
+    }
+
+    @Test
+    void testRangeSkipReadsFromOffset() throws IOException {
+        imageCache.load("hot.png", file);
+        Resource cached = imageCache.load("hot.png", file);
+
+        try (InputStream inputStream = cached.getInputStream()) {
+            assertEquals(3, inputStream.skip(3));
+            assertEquals(4, inputStream.read());
+            assertEquals(1, inputStream.available());
+        }
+    }
+
+    @Test
+    void testLargeImageIsNotCached() throws IOException {
+        Path large = Files.write(imageDir.resolve("large.png"), new byte[101]);
+
+        imageCache.load("large.png", large);
+        imageCache.load("large.png", large);
+
+        assertTrue(imageCache.get("large.png").isEmpty());
+    }
+
+    @Test
+    void testInvalidate() {
+        imageCache.load("hot.png", file);
+        imageCache.load("hot.png", file);
+
+        imageCache.invalidate("hot.png");
+
+        assertTrue(imageCache.get("hot.png").isEmpty());
+        assertTrue(imageCache.load("hot.png", file) instanceof FileSystemResource);
+    }
+
+    private static byte[] read(Resource resource) throws IOException {
+        try (InputStream inputStream = resource.getInputStream()) {
+            return inputStream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package ru.skypro.homework.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DatabaseIndexVerifierTest {
+
+    private JdbcDataSource dataSource;
+    private DatabaseIndexVerifier verifier;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1");
+        verifier = new DatabaseIndexVerifier(dataSource);
+        execute("CREATE TABLE users (id SERIAL PRIMARY KEY, email VARCHAR(255), image VARCHAR(255))",
+                "CREATE TABLE ads (id SERIAL PRIMARY KEY, price INTEGER, created_at TIMESTAMP, image VARCHAR(255), "
+                        + "user_id INTEGER REFERENCES users (id))",
+                "CREATE TABLE comments (id SERIAL PRIMARY KEY, created_at TIMESTAMP, "
+                        + "user_id INTEGER REFERENCES users (id), ads_id INTEGER REFERENCES ads (id))");
+    }
+
+    @Test
+    void testAllIndexesPresent() throws SQLException {
+        execute("CREATE UNIQUE INDEX users_email_lower_uidx ON users (email)",
+                "CREATE INDEX users_image_idx ON users (image)",
+                "CREATE INDEX ads_user_id_idx ON ads (user_id)",
+                "CREATE INDEX ads_price_id_idx ON ads (price, id)",
+                "CREATE INDEX ads_created_at_id_idx ON ads (created_at, id)",
+                "CREATE INDEX ads_image_idx ON ads (image)",
+                "CREATE INDEX comments_ads_id_created_at_idx ON comments (ads_id, created_at)",
+                "CREATE INDEX comments_user_id_idx ON comments (user_id)");
+
+        assertTrue(verifier.findMissingIndexes().isEmpty());
+        assertDoesNotThrow(() -> verifier.run(null));
+    }
+
+    @Test
+    void testMissingIndexesFailStartup() throws SQLException {
+        execute("CREATE INDEX ads_user_id_idx ON ads (user_id)",
+                "CREATE INDEX ads_price_id_idx ON ads (price, id)",
+                "CREATE INDEX ads_created_at_id_idx ON ads (created_at, id)");
+
+        assertEquals(List.of("users.users_email_lower_uidx",
+                        "users.users_image_idx",
+                        "ads.ads_image_idx",
+                        "comments.comments_ads_id_created_at_idx",
+                        "comments.comments_user_id_idx"),
+                verifier.findMissingIndexes());
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> verifier.run(null));
+        assertTrue(e.getMessage().contains("users.users_email_lower_uidx"));
+    }
+
+    private void execute(String... sql) throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            for (String s : sql) {
+                statement.execute(s);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package ru.skypro.homework.config;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.skypro.homework.entity.User;
+import ru.skypro.homework.repository.JpaRepositoryTestBase;
+import ru.skypro.homework.repository.UserRepository;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@Import(HibernateCacheConfig.class)
+@TestPropertySource(properties =
+        "spring.datasource.url=jdbc:h2:mem:l2cache;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class HibernateCacheConfigTest extends JpaRepositoryTestBase {
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = userRepository.save(newUser("cached@example.com", "Ivan"));
+
+        statistics = clearedStatistics();
+    }
+
+    @AfterEach
+    void tearDown() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void testFindByIdIsServedFromSecondLevelCache() {
+        userRepository.findById(user.getId()).orElseThrow();
+        userRepository.findById(user.getId()).orElseThrow();
+
+        assertEquals(0, statistics.getPrepareStatementCount());
+        assertEquals(2, statistics.getDomainDataRegionStatistics(HibernateCacheConfig.USERS_REGION).getHitCount());
+    }
+
+    @Test
+    void testFindByEmailIsServedFromQueryCache() {
+        userRepository.findByEmail("cached@example.com").orElseThrow();
+        long statements = statistics.getPrepareStatementCount();
+        User cached = userRepository.findByEmail("cached@example.com").orElseThrow();
+
+        assertEquals("Ivan", cached.getFirstName());
+        assertEquals(1, statements);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(1, statistics.getQueryRegionStatistics(HibernateCacheConfig.USERS_BY_EMAIL_REGION).getHitCount());
+    }
+
+    @Test
+    void testUpdateIsVisibleThroughCaches() {
+        userRepository.findByEmail("cached@example.com").orElseThrow();
+
+        user.setFirstName("Petr");
+        userRepository.save(user);
+
+        assertEquals("Petr", userRepository.findByEmail("cached@example.com").orElseThrow().getFirstName());
+        assertEquals("Petr", userRepository.findById(user.getId()).orElseThrow().getFirstName());
+    }
+}
@@ -0,0 +1,76 @@
+package ru.skypro.homework.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import ru.skypro.homework.dto.ImageSize;
+import ru.skypro.homework.service.AdsImportService;
+import ru.skypro.homework.service.AdsService;
+import ru.skypro.homework.service.ImageService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.mockito.Mockito.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+class ImageResponsesTest {
+
+    private static final String NAME = "abcd01.png";
+
+    @TempDir
+    Path imageDir;
+
+    private final AdsService adsService = mock(AdsService.class);
+    private MockMvc mockMvc;
+    private String eTag;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        Path file = Files.write(imageDir.resolve(NAME), new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9});
+        eTag = "\"" + NAME + "\"";
+        when(adsService.getImage(NAME, ImageSize.FULL)).thenAnswer(invocation -> Optional.of(new FileSystemResource(file)));
+        mockMvc = MockMvcBuilders.standaloneSetup(new AdsController(adsService, mock(AdsImportService.class), mock(ImageService.class))).build();
+    }
+
+    @Test
+    void testGetImageReturnsCacheHeaders() throws Exception {
+        mockMvc.perform(get("/ads/image/" + NAME))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(header().string(HttpHeaders.CACHE_CONTROL, "max-age=31536000, public, immutable"))
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andExpect(content().contentType("image/png"))
+                .andExpect(content().bytes(new byte[]{0, 1, 2, 3, 4, 5, 6, 7, 8, 9}));
+    }
+
+    @Test
+    void testGetImageReturnsNotModifiedForMatchingETag() throws Exception {
+        mockMvc.perform(get("/ads/image/" + NAME).header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().bytes(new byte[0]));
+    }
+
+    @Test
+    void testGetImageReturnsPartialContentForRange() throws Exception {
+        mockMvc.perform(get("/ads/image/" + NAME).header(HttpHeaders.RANGE, "bytes=2-4"))
+                .andExpect(status().isPartialContent())
+                .andExpect(header().string(HttpHeaders.CONTENT_RANGE, "bytes 2-4/10"))
+                .andExpect(content().bytes(new byte[]{2, 3, 4}));
+    }
+
+    @Test
+    void testGetImageReturnsNotFound() throws Exception {
+        when(adsService.getImage("missing.png", ImageSize.FULL)).thenReturn(Optional.empty());
+
+        mockMvc.perform(get("/ads/image/missing.png"))
+                .andExpect(status().isNotFound());
+    }
+}
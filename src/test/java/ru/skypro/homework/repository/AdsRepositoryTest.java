@@ -0,0 +1,105 @@
+package ru.skypro.homework.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import ru.skypro.homework.dto.AdsSort;
+import ru.skypro.homework.entity.Ads;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AdsRepositoryTest extends JpaRepositoryTestBase {
+
+    @Autowired
+    private AdsRepository adsRepository;
+
+    private Ads bike;
+    private Ads discountBike;
+    private Ads sofa;
+
+    @BeforeEach
+    void setUp() {
+        bike = persistAds("Road Bike", "Fast and light", 300, 1);
+        sofa = persistAds("Sofa", "Comfortable", 150, 3);
+        discountBike = persistAds("Kids bicycle", "100% new bike", 150, 2);
+        entityManager.flush();
+    }
+
+    @Test
+    void testSearchByPatternMatchesTitleAndDescription() {
+        List<Ads> found = adsRepository.searchByPattern("%bike%", Integer.MAX_VALUE, PageRequest.of(0, 10));
+
+        assertEquals(List.of(discountBike.getId(), bike.getId()), ids(found));
+    }
+
+    @Test
+    void testSearchByPatternContinuesBeforeId() {
+        List<Ads> found = adsRepository.searchByPattern("%bike%", discountBike.getId(), PageRequest.of(0, 10));
+
+        assertEquals(List.of(bike.getId()), ids(found));
+    }
+
+    @Test
+    void testSearchByPatternEscapesWildcards() {
+        List<Ads> found = adsRepository.searchByPattern("%100\\%%", Integer.MAX_VALUE, PageRequest.of(0, 10));
+
+        assertEquals(List.of(discountBike.getId()), ids(found));
+        assertTrue(adsRepository.searchByPattern("%10\\%%", Integer.MAX_VALUE, PageRequest.of(0, 10)).isEmpty());
+    }
+
+    @Test
+    void testFindFeedPageSortedByPriceContinuesAfterKey() {
+        List<Ads> firstPage = adsRepository.findFeedPage(null, null, AdsSort.PRICE, null, null, 2);
+        Ads last = firstPage.get(1);
+        List<Ads> nextPage = adsRepository.findFeedPage(null, null, AdsSort.PRICE, last.getPrice(), last.getId(), 2);
+
+        assertEquals(List.of(sofa.getId(), discountBike.getId()), ids(firstPage));
+        assertEquals(List.of(bike.getId()), ids(nextPage));
+    }
+
+    @Test
+    void testFindFeedPageFilteredByPriceSortedByNewest() {
+        List<Ads> firstPage = adsRepository.findFeedPage(100, 200, AdsSort.NEWEST, null, null, 1);
+        Ads last = firstPage.get(0);
+        List<Ads> nextPage = adsRepository.findFeedPage(100, 200, AdsSort.NEWEST, last.getCreatedAt(), last.getId(), 10);
+
+        assertEquals(List.of(sofa.getId()), ids(firstPage));
+        assertEquals(List.of(discountBike.getId()), ids(nextPage));
+        assertEquals(2, adsRepository.countByPriceRange(100, 200));
+        assertEquals(1, adsRepository.countByPriceRange(200, null));
+    }
+
+    @Test
+    void testAdsWithoutPriceAreNeitherSortedByPriceNorCounted() {
+        persistAds("Free chair", "Pick up today", null, 4);
+        entityManager.flush();
+
+        assertEquals(3, adsRepository.findFeedPage(null, null, AdsSort.PRICE, null, null, 10).size());
+        assertEquals(3, adsRepository.countByPriceRange(null, null));
+    }
+
+    @Test
+    void testCountByPriceBuckets() {
+        PriceRange range = adsRepository.findPriceRange();
+        Map<Integer, Long> buckets = adsRepository.countByPriceBuckets(range.getMinPrice(), 100).stream()
+                .collect(Collectors.toMap(PriceBucketCount::getBucket, PriceBucketCount::getTotal));
+
+        assertEquals(150, range.getMinPrice());
+        assertEquals(300, range.getMaxPrice());
+        assertEquals(Map.of(0, 2L, 1, 1L), buckets);
+    }
+
+    private Ads persistAds(String title, String description, Integer price, int day) {
+        return persistAds(null, title, description, price, LocalDateTime.of(2023, 1, day, 0, 0));
+    }
+
+    private static List<Integer> ids(List<Ads> ads) {
+        return ads.stream().map(Ads::getId).collect(Collectors.toList());
+    }
+}
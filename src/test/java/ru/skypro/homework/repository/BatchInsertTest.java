@@ -0,0 +1,47 @@
+package ru.skypro.homework.repository;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.skypro.homework.entity.Ads;
+import ru.skypro.homework.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchInsertTest extends JpaRepositoryTestBase {
+
+    private static final int ADS_COUNT = 120;
+
+    private Statistics statistics;
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = persistUser("seller@example.com", null);
+        entityManager.flush();
+
+        statistics = clearedStatistics();
+    }
+
+    @Test
+    void testInsertsAreBatched() {
+        List<Ads> adsList = new ArrayList<>();
+        for (int i = 0; i < ADS_COUNT; i++) {
+            adsList.add(persistAds(user, "Ad " + i, null, i, LocalDateTime.of(2023, 1, 1, 0, 0)));
+        }
+        entityManager.flush();
+
+        Set<Integer> ids = adsList.stream().map(Ads::getId).collect(Collectors.toSet());
+        assertEquals(ADS_COUNT, ids.size());
+        assertEquals(ADS_COUNT, statistics.getEntityInsertCount());
+        // 3 обращения к ads_seq и 3 пакета вставок вместо 120 запросов.
+        assertTrue(statistics.getPrepareStatementCount() < ADS_COUNT / 10,
+                "Expected batched inserts, got " + statistics.getPrepareStatementCount() + " statements");
+    }
+}
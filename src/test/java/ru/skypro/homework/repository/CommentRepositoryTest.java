@@ -0,0 +1,83 @@
+package ru.skypro.homework.repository;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import ru.skypro.homework.entity.Ads;
+import ru.skypro.homework.entity.Comment;
+import ru.skypro.homework.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CommentRepositoryTest extends JpaRepositoryTestBase {
+
+    private static final LocalDateTime START = LocalDateTime.of(2023, 1, 1, 0, 0);
+
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private Statistics statistics;
+    private User spammer;
+    private Ads ads;
+    private Ads otherAds;
+    private final List<Comment> comments = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        User author = persistUser("author@example.com", null);
+        spammer = persistUser("spammer@example.com", null);
+        ads = persistAds(author, "Bike", null, null, START);
+        otherAds = persistAds(author, "Bike", null, null, START);
+        for (int i = 0; i < 4; i++) {
+            comments.add(persistComment(ads, i % 2 == 0 ? author : spammer, "Comment", START.plusHours(i)));
+        }
+        comments.add(persistComment(otherAds, spammer, "Comment", START));
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = clearedStatistics();
+    }
+
+    @Test
+    void testDeleteByIdIn() {
+        int deleted = commentRepository.deleteByIdIn(List.of(comments.get(0).getId(), comments.get(4).getId(), -1));
+
+        assertEquals(2, deleted);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(3, commentRepository.count());
+    }
+
+    @Test
+    void testDeleteByUserId() {
+        int deleted = commentRepository.deleteByUserId(spammer.getId());
+
+        assertEquals(3, deleted);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, commentRepository.count());
+    }
+
+    @Test
+    void testDeleteByAdsIdSince() {
+        int deleted = commentRepository.deleteByAdsIdSince(ads.getId(), START.plusHours(2));
+
+        assertEquals(2, deleted);
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(2, commentRepository.countByAdsId(ads.getId()));
+        assertEquals(1, commentRepository.countByAdsId(otherAds.getId()));
+    }
+
+    @Test
+    void testDeleteByAdsIdAndIdAndFindAuthorEmail() {
+        Integer id = comments.get(1).getId();
+
+        assertEquals("spammer@example.com", commentRepository.findAuthorEmailById(id).orElseThrow());
+        assertEquals(0, commentRepository.deleteByAdsIdAndId(otherAds.getId(), id));
+        assertEquals(1, commentRepository.deleteByAdsIdAndId(ads.getId(), id));
+        assertTrue(commentRepository.findAuthorEmailById(id).isEmpty());
+    }
+}
@@ -0,0 +1,66 @@
+package ru.skypro.homework.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import ru.skypro.homework.dto.Role;
+import ru.skypro.homework.entity.Ads;
+import ru.skypro.homework.entity.Comment;
+import ru.skypro.homework.entity.User;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.LocalDateTime;
+
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:homework;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+        "spring.jpa.hibernate.ddl-auto=none"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public abstract class JpaRepositoryTestBase {
+
+    @Autowired
+    protected TestEntityManager entityManager;
+    @Autowired
+    protected EntityManagerFactory entityManagerFactory;
+
+    protected Statistics clearedStatistics() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        return statistics;
+    }
+
+    protected static User newUser(String email, String firstName) {
+        User user = new User();
+        user.setEmail(email);
+        user.setPassword("password");
+        user.setFirstName(firstName);
+        user.setRole(Role.USER);
+        return user;
+    }
+
+    protected User persistUser(String email, String firstName) {
+        return entityManager.persist(newUser(email, firstName));
+    }
+
+    protected Ads persistAds(User user, String title, String description, Integer price, LocalDateTime createdAt) {
+        Ads ads = new Ads();
+        ads.setUser(user);
+        ads.setTitle(title);
+        ads.setDescription(description);
+        ads.setPrice(price);
+        ads.setCreatedAt(createdAt);
+        return entityManager.persist(ads);
+    }
+
+    protected Comment persistComment(Ads ads, User user, String text, LocalDateTime createdAt) {
+        Comment comment = new Comment();
+        comment.setAds(ads);
+        comment.setUser(user);
+        comment.setText(text);
+        comment.setCreatedAt(createdAt);
+        return entityManager.persist(comment);
+    }
+}
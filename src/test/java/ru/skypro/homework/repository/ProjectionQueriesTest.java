@@ -0,0 +1,83 @@
+package ru.skypro.homework.repository;
+
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.PageRequest;
+import ru.skypro.homework.dto.CommentDto;
+import ru.skypro.homework.dto.FullAds;
+import ru.skypro.homework.entity.Ads;
+import ru.skypro.homework.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ProjectionQueriesTest extends JpaRepositoryTestBase {
+
+    @Autowired
+    private AdsRepository adsRepository;
+    @Autowired
+    private CommentRepository commentRepository;
+
+    private Statistics statistics;
+    private Ads ads;
+
+    @BeforeEach
+    void setUp() {
+        User author = persistUser("author@example.com", "Ivan");
+        ads = persistAds(author, "Bike", "Road bike", 100, LocalDateTime.of(2023, 1, 1, 0, 0));
+        for (int i = 0; i < 3; i++) {
+            persistComment(ads, persistUser("user" + i + "@example.com", "User " + i), "Comment " + i,
+                    LocalDateTime.of(2023, 1, 1, 0, 0).plusMinutes(i));
+        }
+        entityManager.flush();
+        entityManager.clear();
+
+        statistics = clearedStatistics();
+    }
+
+    @Test
+    void testFindFullAdsByIdRunsSingleStatement() {
+        FullAds fullAds = adsRepository.findFullAdsById(ads.getId()).orElseThrow();
+
+        assertEquals("Bike", fullAds.getTitle());
+        assertEquals("Ivan", fullAds.getAuthorFirstName());
+        assertEquals("author@example.com", fullAds.getEmail());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindCommentDtosByAdsIdRunsSingleStatement() {
+        List<CommentDto> comments = commentRepository.findCommentDtosByAdsId(ads.getId(), PageRequest.of(0, 10));
+
+        assertEquals(3, comments.size());
+        assertEquals("User 0", comments.get(0).getAuthorFirstName());
+        assertEquals("Comment 2", comments.get(2).getText());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+
+    @Test
+    void testFindCommentDtosByAdsIdAfterContinuesFromKey() {
+        List<CommentDto> firstPage = commentRepository.findCommentDtosByAdsId(ads.getId(), PageRequest.of(0, 2));
+        CommentDto last = firstPage.get(1);
+
+        List<CommentDto> nextPage = commentRepository.findCommentDtosByAdsIdAfter(ads.getId(),
+                last.getCreatedAt(), last.getPk(), PageRequest.of(0, 2));
+
+        assertEquals(1, nextPage.size());
+        assertEquals("Comment 2", nextPage.get(0).getText());
+        assertEquals(3, commentRepository.countByAdsId(ads.getId()));
+    }
+
+    @Test
+    void testFindCommentDtosByAdsIdAfterRunsSingleStatement() {
+        List<CommentDto> comments = commentRepository.findCommentDtosByAdsIdAfter(ads.getId(),
+                LocalDateTime.of(2023, 1, 1, 0, 0), Integer.MAX_VALUE, PageRequest.of(0, 10));
+
+        assertEquals(2, comments.size());
+        assertEquals(1, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,120 @@
+package ru.skypro.homework.search;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сравнивает поиск по встроенному индексу {@link InvertedIndex} с поиском по подстроке в SQL,
+ * который используется сервисом объявлений без полнотекстового поиска PostgreSQL.
+ * Запускается методом {@link #main(String[])} с classpath тестов.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AdsSearchBenchmark {
+
+    private static final String[] WORDS = {
+            "велосипед", "горный", "детский", "диван", "кресло", "стол", "телефон", "ноутбук", "зимний",
+            "новый", "скорость", "подарок", "кожаный", "книга", "лампа", "шкаф", "куртка", "коляска",
+            "холодильник", "стиральная", "машина", "гитара", "колонки", "самокат", "палатка", "лыжи"
+    };
+    private static final String SQL = "SELECT id FROM ads WHERE (lower(title) LIKE ? OR lower(description) LIKE ?) " +
+            "ORDER BY id DESC LIMIT ?";
+
+    @Param({"10000"})
+    private int adsCount;
+
+    private InvertedIndex index;
+    private Connection connection;
+    private PreparedStatement statement;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        Random random = new Random(42);
+        index = new InvertedIndex();
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:benchmark");
+        connection = dataSource.getConnection();
+        try (Statement ddl = connection.createStatement()) {
+            ddl.execute("CREATE TABLE ads (id INTEGER PRIMARY KEY, title VARCHAR(255), description TEXT)");
+        }
+        try (PreparedStatement insert = connection.prepareStatement("INSERT INTO ads VALUES (?, ?, ?)")) {
+            for (int id = 1; id <= adsCount; id++) {
+                String title = words(random, 3);
+                String description = words(random, 20);
+                index.put(id, title, description);
+                insert.setInt(1, id);
+                insert.setString(2, title);
+                insert.setString(3, description);
+                insert.addBatch();
+            }
+            insert.executeBatch();
+        }
+        statement = connection.prepareStatement(SQL);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        statement.close();
+        connection.close();
+    }
+
+    @Benchmark
+    public List<SearchHit> inMemoryPrefix() {
+        return index.search("велосипед гор", 20);
+    }
+
+    @Benchmark
+    public List<Integer> sqlPattern() throws SQLException {
+        statement.setString(1, "%велосипед%");
+        statement.setString(2, "%велосипед%");
+        statement.setInt(3, 20);
+        List<Integer> ids = new ArrayList<>();
+        try (ResultSet rs = statement.executeQuery()) {
+            while (rs.next()) {
+                ids.add(rs.getInt(1));
+            }
+        }
+        return ids;
+    }
+
+    private static String words(Random random, int count) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            builder.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+        return builder.toString();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(AdsSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
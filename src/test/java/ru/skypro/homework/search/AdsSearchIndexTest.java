@@ -0,0 +1,42 @@
+package ru.skypro.homework.search;
+
+import org.junit.jupiter.api.Test;
+import ru.skypro.homework.cache.CacheInvalidationEvent;
+import ru.skypro.homework.entity.Ads;
+import ru.skypro.homework.repository.AdsRepository;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class AdsSearchIndexTest {
+
+    private final AdsRepository adsRepository = mock(AdsRepository.class);
+    private final AdsSearchIndex searchIndex = new AdsSearchIndex(adsRepository, true);
+
+    @Test
+    void testInvalidationReloadsAdsWithOneQuery() {
+        searchIndex.index(ads(1, "Vintage bike"));
+        searchIndex.index(ads(2, "Red bike"));
+        when(adsRepository.findAllById(Set.of(1, 2))).thenReturn(List.of(ads(1, "Modern bike")));
+
+        searchIndex.onInvalidation(new CacheInvalidationEvent(CacheInvalidationEvent.Type.ADS, List.of("1", "2")));
+
+        List<SearchHit> hits = searchIndex.search("bike", 10);
+        assertEquals(1, hits.size());
+        assertEquals(1, hits.get(0).getId());
+        assertTrue(searchIndex.search("vintage", 10).isEmpty());
+        verify(adsRepository).findAllById(Set.of(1, 2));
+        verifyNoMoreInteractions(adsRepository);
+    }
+
+    private static Ads ads(int id, String title) {
+        Ads ads = new Ads();
+        ads.setId(id);
+        ads.setTitle(title);
+        ads.setDescription("");
+        return ads;
+    }
+}
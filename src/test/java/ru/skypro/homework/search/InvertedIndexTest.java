@@ -0,0 +1,63 @@
+package ru.skypro.homework.search;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class InvertedIndexTest {
+
+    private InvertedIndex index;
+
+    @BeforeEach
+    void setUp() {
+        index = new InvertedIndex();
+        index.put(1, "Горный велосипед", "Почти новый, 21 скорость");
+        index.put(2, "Диван", "Раскладной диван, велосипед в подарок");
+        index.put(3, "Детский велосипед", "Ёлка и велосипед не входят");
+    }
+
+    @Test
+    void testSearchRanksTitleMatchesFirst() {
+        List<Integer> ids = ids(index.search("велосипед ", 10));
+
+        assertEquals(3, ids.size());
+        assertEquals(2, ids.get(2));
+    }
+
+    @Test
+    void testSearchRequiresAllTerms() {
+        assertEquals(List.of(1), ids(index.search("велосипед горный ", 10)));
+        assertTrue(index.search("велосипед кресло ", 10).isEmpty());
+    }
+
+    @Test
+    void testLastTermMatchesByPrefix() {
+        assertEquals(List.of(1), ids(index.search("велосипед гор", 10)));
+        assertTrue(index.search("велосипед гор ", 10).isEmpty());
+        assertEquals(List.of(3), ids(index.search("елк", 10)));
+    }
+
+    @Test
+    void testSearchRespectsLimit() {
+        assertEquals(1, index.search("велосипед", 1).size());
+    }
+
+    @Test
+    void testPutReplacesAndRemoveDeletesDocument() {
+        index.put(2, "Кресло", "Мягкое");
+        assertEquals(List.of(2), ids(index.search("кресло", 10)));
+        assertEquals(2, index.search("велосипед", 10).size());
+
+        index.remove(2);
+        assertTrue(index.search("кресло", 10).isEmpty());
+        assertEquals(2, index.size());
+    }
+
+    private static List<Integer> ids(List<SearchHit> hits) {
+        return hits.stream().map(SearchHit::getId).collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,94 @@
+package ru.skypro.homework.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.skypro.homework.dto.Role;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class CachingAuthenticationProviderTest {
+
+    private static final String EMAIL = "user@example.com";
+
+    @Mock
+    private UserDetailsService userDetailsService;
+    @Mock
+    private PasswordEncoder passwordEncoder;
+
+    private CredentialsCache credentialsCache;
+    private CachingAuthenticationProvider authenticationProvider;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        credentialsCache = new CredentialsCache(new SimpleMeterRegistry(), 100, Duration.ofMinutes(5));
+        authenticationProvider = new CachingAuthenticationProvider(userDetailsService, passwordEncoder, credentialsCache);
+        when(userDetailsService.loadUserByUsername(EMAIL))
+                .thenReturn(new MyUserDetails(1, EMAIL, "encoded", Role.USER));
+    }
+
+    @Test
+    void testRepeatedAuthenticationSkipsPasswordEncoder() {
+        when(passwordEncoder.matches("password", "encoded")).thenReturn(true);
+
+        Authentication first = authenticationProvider.authenticate(token("password"));
+        Authentication second = authenticationProvider.authenticate(token("password"));
+
+        assertTrue(second.isAuthenticated());
+        assertEquals(EMAIL, second.getName());
+        assertEquals(first.getAuthorities(), second.getAuthorities());
+        assertNull(((MyUserDetails) second.getPrincipal()).getPassword());
+        verify(userDetailsService, times(1)).loadUserByUsername(EMAIL);
+        verify(passwordEncoder, times(1)).matches("password", "encoded");
+    }
+
+    @Test
+    void testWrongPasswordIsNotCached() {
+        when(passwordEncoder.matches("password", "encoded")).thenReturn(true);
+        authenticationProvider.authenticate(token("password"));
+
+        assertThrows(BadCredentialsException.class, () -> authenticationProvider.authenticate(token("wrong")));
+        assertThrows(BadCredentialsException.class, () -> authenticationProvider.authenticate(token("wrong")));
+
+        verify(passwordEncoder, times(2)).matches("wrong", "encoded");
+    }
+
+    @Test
+    void testInvalidateForcesPasswordCheck() {
+        when(passwordEncoder.matches("password", "encoded")).thenReturn(true);
+        authenticationProvider.authenticate(token("password"));
+
+        credentialsCache.invalidate(EMAIL);
+        authenticationProvider.authenticate(token("password"));
+
+        verify(passwordEncoder, times(2)).matches("password", "encoded");
+    }
+
+    @Test
+    void testAuthenticationRacingWithInvalidateIsNotCached() {
+        when(passwordEncoder.matches("password", "encoded")).thenReturn(true);
+        when(userDetailsService.loadUserByUsername(EMAIL)).thenAnswer(invocation -> {
+            credentialsCache.invalidate(EMAIL);
+            return new MyUserDetails(1, EMAIL, "encoded", Role.USER);
+        });
+
+        authenticationProvider.authenticate(token("password"));
+
+        assertNull(credentialsCache.get(EMAIL, "password"));
+    }
+
+    private UsernamePasswordAuthenticationToken token(String password) {
+        return new UsernamePasswordAuthenticationToken(EMAIL, password);
+    }
+}
@@ -0,0 +1,100 @@
+package ru.skypro.homework.security;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import ru.skypro.homework.dto.MyUserDetailsDto;
+import ru.skypro.homework.dto.Role;
+import ru.skypro.homework.entity.User;
+import ru.skypro.homework.exception.UserWithEmailNotFoundException;
+import ru.skypro.homework.mapper.UserMapper;
+import ru.skypro.homework.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class MyUserDetailsServiceTest {
+
+    private static final String EMAIL = "user@example.com";
+
+    @Mock
+    private UserRepository userRepository;
+    @Mock
+    private UserMapper userMapper;
+
+    private MyUserDetailsService myUserDetailsService;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        myUserDetailsService = new MyUserDetailsService(userRepository, userMapper,
+                new SimpleMeterRegistry(), 100, Duration.ofMinutes(10));
+        User user = new User();
+        MyUserDetailsDto dto = new MyUserDetailsDto();
+        dto.setId(1);
+        dto.setEmail(EMAIL);
+        dto.setPassword("encoded");
+        dto.setRole(Role.ADMIN);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(userMapper.toMyUserDetailsDto(user)).thenReturn(dto);
+    }
+
+    @Test
+    void testLoadUserByUsernameIsCached() {
+        MyUserDetails first = myUserDetailsService.loadUserByUsername(EMAIL);
+        MyUserDetails second = myUserDetailsService.loadUserByUsername(EMAIL);
+
+        assertSame(first, second);
+        assertEquals(EMAIL, second.getUsername());
+        assertEquals("encoded", second.getPassword());
+        assertEquals("ROLE_ADMIN", second.getAuthorities().iterator().next().getAuthority());
+        verify(userRepository, times(1)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void testEvictReloadsUser() {
+        myUserDetailsService.loadUserByUsername(EMAIL);
+
+        myUserDetailsService.evict(EMAIL);
+        myUserDetailsService.loadUserByUsername(EMAIL);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void testLoadRacingWithEvictIsNotCached() {
+        User user = new User();
+        MyUserDetailsDto dto = new MyUserDetailsDto();
+        dto.setId(1);
+        dto.setEmail(EMAIL);
+        dto.setPassword("old");
+        dto.setRole(Role.USER);
+        when(userRepository.findByEmail(EMAIL)).thenAnswer(invocation -> {
+            myUserDetailsService.evict(EMAIL);
+            return Optional.of(user);
+        });
+        when(userMapper.toMyUserDetailsDto(user)).thenReturn(dto);
+
+        myUserDetailsService.loadUserByUsername(EMAIL);
+        myUserDetailsService.loadUserByUsername(EMAIL);
+
+        verify(userRepository, times(2)).findByEmail(EMAIL);
+    }
+
+    @Test
+    void testUnknownUserIsNotCached() {
+        when(userRepository.findByEmail("unknown@example.com")).thenReturn(Optional.empty());
+
+        assertThrows(UserWithEmailNotFoundException.class,
+                () -> myUserDetailsService.loadUserByUsername("unknown@example.com"));
+        assertThrows(UserWithEmailNotFoundException.class,
+                () -> myUserDetailsService.loadUserByUsername("unknown@example.com"));
+
+        verify(userRepository, times(2)).findByEmail("unknown@example.com");
+    }
+}
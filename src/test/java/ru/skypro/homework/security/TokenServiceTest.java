@@ -0,0 +1,72 @@
+package ru.skypro.homework.security;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import ru.skypro.homework.dto.AuthTokens;
+import ru.skypro.homework.dto.Role;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TokenServiceTest {
+
+    private static final String EMAIL = "user@example.com";
+
+    private final TokenService tokenService = new TokenService(new ObjectMapper(), "secret",
+            Duration.ofMinutes(15), Duration.ofDays(14));
+
+    @Test
+    void testAccessTokenRoundTrip() {
+        AuthTokens tokens = tokenService.issueTokens(EMAIL, Role.ADMIN, "hash");
+
+        Optional<TokenClaims> claims = tokenService.parseAccessToken(tokens.getAccessToken());
+
+        assertTrue(claims.isPresent());
+        assertEquals(EMAIL, claims.get().getSubject());
+        assertEquals(Role.ADMIN, claims.get().getRole());
+        assertEquals("Bearer", tokens.getTokenType());
+        assertEquals(900, tokens.getExpiresIn());
+    }
+
+    @Test
+    void testRefreshTokenCarriesPasswordFingerprint() {
+        AuthTokens tokens = tokenService.issueTokens(EMAIL, Role.USER, "hash");
+
+        Optional<TokenClaims> claims = tokenService.parseRefreshToken(tokens.getRefreshToken());
+
+        assertTrue(claims.isPresent());
+        assertEquals(tokenService.fingerprint("hash"), claims.get().getFingerprint());
+        assertNotEquals(tokenService.fingerprint("otherHash"), claims.get().getFingerprint());
+    }
+
+    @Test
+    void testTokenTypesAreNotInterchangeable() {
+        AuthTokens tokens = tokenService.issueTokens(EMAIL, Role.USER, "hash");
+
+        assertTrue(tokenService.parseAccessToken(tokens.getRefreshToken()).isEmpty());
+        assertTrue(tokenService.parseRefreshToken(tokens.getAccessToken()).isEmpty());
+    }
+
+    @Test
+    void testTamperedOrForeignTokenIsRejected() {
+        String token = tokenService.issueTokens(EMAIL, Role.USER, "hash").getAccessToken();
+        TokenService otherService = new TokenService(new ObjectMapper(), "other",
+                Duration.ofMinutes(15), Duration.ofDays(14));
+
+        assertTrue(tokenService.parseAccessToken(token.substring(0, token.length() - 2) + "xx").isEmpty());
+        assertTrue(otherService.parseAccessToken(token).isEmpty());
+        assertTrue(tokenService.parseAccessToken("not-a-token").isEmpty());
+    }
+
+    @Test
+    void testExpiredTokenIsRejected() {
+        TokenService expiredService = new TokenService(new ObjectMapper(), "secret",
+                Duration.ofSeconds(-1), Duration.ofSeconds(-1));
+        AuthTokens tokens = expiredService.issueTokens(EMAIL, Role.USER, "hash");
+
+        assertTrue(tokenService.parseAccessToken(tokens.getAccessToken()).isEmpty());
+        assertTrue(tokenService.parseRefreshToken(tokens.getRefreshToken()).isEmpty());
+    }
+}
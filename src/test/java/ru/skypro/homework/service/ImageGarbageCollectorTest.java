@@ -0,0 +1,88 @@
+package ru.skypro.homework.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.skypro.homework.cache.ImageCache;
+import ru.skypro.homework.repository.AdsRepository;
+import ru.skypro.homework.repository.UserRepository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class ImageGarbageCollectorTest {
+
+    @TempDir
+    Path imageDir;
+
+    private final AdsRepository adsRepository = mock(AdsRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private ImageLayout imageLayout;
+    private ImageGarbageCollector collector;
+
+    @BeforeEach
+    void setUp() {
+        imageLayout = new ImageLayout(imageDir.toString());
+        collector = new ImageGarbageCollector(imageLayout, adsRepository, userRepository,
+                mock(ImageCache.class), meterRegistry,
+                Duration.ofHours(1), Duration.ofHours(6), 2, Duration.ZERO);
+        when(adsRepository.findImagesIn(anyCollection())).thenReturn(List.of("/ads/image/ads.png"));
+        when(userRepository.findImagesIn(anyCollection())).thenReturn(List.of("/users/image/avatar.png"));
+    }
+
+    @Test
+    void testSweepDeletesOldOrphansOnly() throws Exception {
+        Path ads = oldFile("ads.png", 10);
+        Path adsThumb = oldFile("ads_thumb.png", 5);
+        Path avatar = oldFile("avatar.png", 10);
+        Path orphan = oldFile("orphan.png", 100);
+        Path orphanThumb = oldFile("orphan_thumb.png", 20);
+        Path recentOrphan = imageLayout.pathOf("recent.png");
+        Files.createDirectories(recentOrphan.getParent());
+        Files.write(recentOrphan, new byte[10]);
+        Path upload = oldFile("upload1.tmp", 7);
+
+        assertEquals(3, collector.sweep());
+
+        assertTrue(Files.exists(ads));
+        assertTrue(Files.exists(adsThumb));
+        assertTrue(Files.exists(avatar));
+        assertTrue(Files.exists(recentOrphan));
+        assertFalse(Files.exists(orphan));
+        assertFalse(Files.exists(orphanThumb));
+        assertFalse(Files.exists(upload));
+        assertEquals(127, meterRegistry.get("images.gc.reclaimed").counter().count());
+        assertEquals(3, meterRegistry.get("images.gc.deleted").counter().count());
+    }
+
+    @Test
+    void testSweepChecksReferencesInBatches() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            oldFile(i + ".png", 1);
+        }
+
+        collector.sweep();
+
+        verify(adsRepository, times(3)).findImagesIn(anyCollection());
+        verify(userRepository, times(3)).findImagesIn(anyCollection());
+    }
+
+    private Path oldFile(String name, int size) throws IOException {
+        Path file = name.endsWith(".tmp") ? imageDir.resolve(name) : imageLayout.pathOf(name);
+        Files.createDirectories(file.getParent());
+        Files.write(file, new byte[size]);
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofDays(2))));
+        return file;
+    }
+}
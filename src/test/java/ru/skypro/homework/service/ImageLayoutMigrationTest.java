@@ -0,0 +1,86 @@
+package ru.skypro.homework.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageLayoutMigrationTest {
+
+    @TempDir
+    Path imageDir;
+
+    private ImageLayout imageLayout;
+    private ImageLayoutMigration migration;
+
+    @BeforeEach
+    void setUp() {
+        imageLayout = new ImageLayout(imageDir.toString());
+        migration = new ImageLayoutMigration(imageLayout, 2, Duration.ZERO);
+    }
+
+    @Test
+    void testOriginalAndVariantsShareShard() {
+        Path original = imageLayout.pathOf("photo.png");
+
+        assertEquals(imageDir.toAbsolutePath(), original.getParent().getParent().getParent());
+        assertEquals(original.getParent(), imageLayout.pathOf("photo_thumb.png").getParent());
+        assertEquals(original.getParent(), imageLayout.pathOf("photo_medium.png").getParent());
+    }
+
+    @Test
+    void testFlatFilesAreFoundUntilMigrated() throws Exception {
+        Path flat = Files.write(imageDir.resolve("old.png"), new byte[]{1});
+
+        assertEquals(flat, imageLayout.locate("old.png").orElseThrow());
+
+        assertEquals(1, migration.migrate());
+
+        assertFalse(Files.exists(flat));
+        assertEquals(imageLayout.pathOf("old.png"), imageLayout.locate("old.png").orElseThrow());
+        assertTrue(imageLayout.isMigrated());
+    }
+
+    @Test
+    void testMigrationMovesAllFilesAndSkipsTemporary() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            Files.write(imageDir.resolve(i + ".png"), new byte[]{(byte) i});
+        }
+        Files.write(imageDir.resolve("upload1.tmp"), new byte[]{0});
+        Path migrated = imageLayout.pathOf("0.png");
+        Files.createDirectories(migrated.getParent());
+        Files.write(migrated, new byte[]{0});
+
+        assertEquals(5, migration.migrate());
+
+        for (int i = 0; i < 5; i++) {
+            assertArrayEquals(new byte[]{(byte) i}, Files.readAllBytes(imageLayout.locate(i + ".png").orElseThrow()));
+            assertFalse(Files.exists(imageDir.resolve(i + ".png")));
+        }
+        assertTrue(Files.exists(imageDir.resolve("upload1.tmp")));
+    }
+
+    @Test
+    void testMigrationStateSurvivesRestart() throws Exception {
+        Files.write(imageDir.resolve("old.png"), new byte[]{1});
+        migration.migrate();
+
+        ImageLayout restarted = new ImageLayout(imageDir.toString());
+
+        assertTrue(restarted.isMigrated());
+        Files.write(imageDir.resolve("stray.png"), new byte[]{1});
+        assertTrue(restarted.locate("stray.png").isEmpty());
+    }
+
+    @Test
+    void testInvalidNamesAreNotLocated() {
+        assertTrue(imageLayout.locate("../secret.png").isEmpty());
+        assertTrue(imageLayout.locate(ImageLayout.MIGRATED_MARKER).isEmpty());
+        assertThrows(IllegalArgumentException.class, () -> imageLayout.pathOf("a/b.png"));
+    }
+}
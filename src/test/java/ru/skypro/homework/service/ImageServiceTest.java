@@ -0,0 +1,228 @@
+package ru.skypro.homework.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.core.io.Resource;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.skypro.homework.cache.ImageCache;
+import ru.skypro.homework.dto.ImageSize;
+import ru.skypro.homework.exception.ImageTooLargeException;
+import ru.skypro.homework.exception.UnsupportedImageException;
+import ru.skypro.homework.repository.AdsRepository;
+import ru.skypro.homework.repository.UserRepository;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ImageServiceTest {
+
+    @TempDir
+    Path imageDir;
+
+    private final AdsRepository adsRepository = mock(AdsRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private ImageLayout imageLayout;
+    private ImageCache imageCache;
+    private ImageService imageService;
+
+    @BeforeEach
+    void setUp() {
+        imageLayout = new ImageLayout(imageDir.toString());
+        imageCache = new ImageCache(new SimpleMeterRegistry(), true, 1024 * 1024, 1024 * 1024, 2, Duration.ofMinutes(10));
+        imageService = new ImageService(adsRepository, userRepository, imageLayout, imageCache);
+        ReflectionTestUtils.setField(imageService, "thumbSize", 200);
+        ReflectionTestUtils.setField(imageService, "mediumSize", 800);
+        ReflectionTestUtils.setField(imageService, "variantMaxPixels", 1_000_000L);
+        ReflectionTestUtils.setField(imageService, "reuseGrace", Duration.ofMinutes(10));
+        ReflectionTestUtils.setField(imageService, "maxUploadBytes", 1_000_000L);
+    }
+
+    @Test
+    void testSaveImageCreatesVariants() throws IOException {
+        String path = imageService.saveImage(new MockMultipartFile("image", "a.png", "image/png", png(1000, 500)), "/ads");
+
+        String name = path.substring(path.lastIndexOf('/') + 1);
+        BufferedImage thumbImage = ImageIO.read(imageLayout.pathOf(name.replace(".png", "_thumb.png")).toFile());
+        assertEquals(200, thumbImage.getWidth());
+        assertEquals(100, thumbImage.getHeight());
+        assertEquals(800, ImageIO.read(imageLayout.pathOf(name.replace(".png", "_medium.png")).toFile()).getWidth());
+    }
+
+    @Test
+    void testVariantOfSmallImageLinksOriginal() throws IOException {
+        Path original = Files.write(imageDir.resolve("small.png"), png(100, 50));
+
+        Resource thumb = imageService.getImage("small.png", ImageSize.THUMB).orElseThrow();
+
+        assertEquals("small_thumb.png", thumb.getFilename());
+        assertTrue(Files.isSameFile(original, imageDir.resolve("small_thumb.png")));
+    }
+
+    @Test
+    void testVariantOfVariantIsNotCreated() throws IOException {
+        Files.write(imageDir.resolve("small.png"), png(100, 50));
+        imageService.getImage("small.png", ImageSize.THUMB).orElseThrow();
+
+        assertTrue(imageService.getImage("small_thumb.png", ImageSize.THUMB).isEmpty());
+        assertTrue(imageService.getImage("small_thumb.png", ImageSize.FULL).isPresent());
+        assertFalse(Files.exists(imageDir.resolve("small_thumb_thumb.png")));
+    }
+
+    @Test
+    void testVariantOfImageOverPixelBudgetLinksOriginal() throws IOException {
+        ReflectionTestUtils.setField(imageService, "variantMaxPixels", 10_000L);
+        Path original = Files.write(imageDir.resolve("large.png"), png(1000, 500));
+
+        Resource thumb = imageService.getImage("large.png", ImageSize.THUMB).orElseThrow();
+
+        assertEquals("large_thumb.png", thumb.getFilename());
+        assertTrue(Files.isSameFile(original, imageDir.resolve("large_thumb.png")));
+    }
+
+    @Test
+    void testSaveImageStoresIdenticalContentOnce() throws IOException {
+        byte[] content = png(100, 50);
+
+        String adsPath = imageService.saveImage(new MockMultipartFile("image", "a.png", "image/png", content), "/ads");
+        String userPath = imageService.saveImage(new MockMultipartFile("image", "b.PNG", "image/png", content), "/users");
+
+        String name = adsPath.substring(adsPath.lastIndexOf('/') + 1);
+        assertTrue(name.matches("[0-9a-f]{64}\\.png"));
+        assertEquals("/users/image/" + name, userPath);
+        assertTrue(Files.isRegularFile(imageLayout.pathOf(name)));
+        try (Stream<Path> files = Files.walk(imageDir)) {
+            assertEquals(3, files.filter(Files::isRegularFile).count());
+        }
+    }
+
+    @Test
+    void testSaveImageUsesSniffedFormat() throws IOException {
+        String path = imageService.saveImage(new MockMultipartFile("image", "photo.jpg", "image/jpeg", png(10, 10)), "/ads");
+
+        assertTrue(path.endsWith(".png"));
+    }
+
+    @Test
+    void testSaveImageRejectsUnsupportedContent() throws IOException {
+        MockMultipartFile text = new MockMultipartFile("image", "a.png", "image/png", "not an image".getBytes());
+
+        assertThrows(UnsupportedImageException.class, () -> imageService.saveImage(text, "/ads"));
+        assertEmpty(imageDir);
+    }
+
+    @Test
+    void testSaveImageRejectsOversizedUpload() throws IOException {
+        ReflectionTestUtils.setField(imageService, "maxUploadBytes", 10L);
+        MockMultipartFile image = new MockMultipartFile("image", "a.png", "image/png", png(100, 100));
+
+        assertThrows(ImageTooLargeException.class, () -> imageService.saveImage(image, "/ads"));
+        assertEmpty(imageDir);
+    }
+
+    @Test
+    void testDeleteKeepsReferencedFile() throws IOException {
+        Path file = storedFile("shared.png");
+        when(adsRepository.countByImageIn(List.of("/ads/image/shared.png", "/users/image/shared.png"))).thenReturn(1L);
+
+        imageService.deleteFileIfNotNull("/ads/image/shared.png");
+
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void testDeleteRemovesLastReferenceWithVariants() throws IOException {
+        Path file = storedFile("unused.png");
+        Path thumb = Files.createLink(imageDir.resolve("unused_thumb.png"), file);
+
+        imageService.deleteFileIfNotNull("/users/image/unused.png");
+
+        assertFalse(Files.exists(file));
+        assertFalse(Files.exists(thumb));
+    }
+
+    @Test
+    void testDeleteInvalidatesCachedImage() throws IOException {
+        storedFile("hot.png");
+        imageService.getImage("hot.png", ImageSize.FULL);
+        imageService.getImage("hot.png", ImageSize.FULL);
+        assertTrue(imageCache.get("hot.png").isPresent());
+
+        imageService.deleteFileIfNotNull("/ads/image/hot.png");
+
+        assertTrue(imageCache.get("hot.png").isEmpty());
+        assertTrue(imageService.getImage("hot.png", ImageSize.FULL).isEmpty());
+    }
+
+    @Test
+    void testDeleteKeepsRecentlyStoredFile() throws IOException {
+        Path file = Files.write(imageDir.resolve("recent.png"), png(10, 10));
+
+        imageService.deleteFileIfNotNull("/ads/image/recent.png");
+
+        assertTrue(Files.exists(file));
+    }
+
+    @Test
+    void testDeleteOfRecentlyStoredFileIsDeferred() throws Exception {
+        ReflectionTestUtils.setField(imageService, "reuseGrace", Duration.ofMillis(200));
+        Path file = Files.write(imageDir.resolve("replaced.png"), png(10, 10));
+
+        imageService.deleteFileIfNotNull("/users/image/replaced.png");
+        assertTrue(Files.exists(file));
+
+        awaitDeleted(file);
+    }
+
+    @Test
+    void testDeferredDeleteKeepsFileReferencedAgain() throws Exception {
+        ReflectionTestUtils.setField(imageService, "reuseGrace", Duration.ofMillis(200));
+        Path file = Files.write(imageDir.resolve("reused.png"), png(10, 10));
+
+        imageService.deleteFileIfNotNull("/ads/image/reused.png");
+        when(adsRepository.countByImageIn(List.of("/ads/image/reused.png", "/users/image/reused.png"))).thenReturn(1L);
+        Thread.sleep(1000);
+
+        assertTrue(Files.exists(file));
+    }
+
+    private static void awaitDeleted(Path file) throws InterruptedException {
+        for (int i = 0; i < 50 && Files.exists(file); i++) {
+            Thread.sleep(100);
+        }
+        assertFalse(Files.exists(file));
+    }
+
+    private static void assertEmpty(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private Path storedFile(String name) throws IOException {
+        Path file = Files.write(imageDir.resolve(name), png(10, 10));
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        return file;
+    }
+
+    private static byte[] png(int width, int height) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB), "png", out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,85 @@
+package ru.skypro.homework.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.skypro.homework.dto.PriceBucket;
+import ru.skypro.homework.repository.AdsRepository;
+import ru.skypro.homework.repository.PriceBucketCount;
+import ru.skypro.homework.repository.PriceRange;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class PriceHistogramTest {
+
+    @Mock
+    private AdsRepository adsRepository;
+    @InjectMocks
+    private PriceHistogram priceHistogram;
+
+    @BeforeEach
+    void setUp() {
+        MockitoAnnotations.openMocks(this);
+        ReflectionTestUtils.setField(priceHistogram, "bucketCount", 4);
+        ReflectionTestUtils.setField(priceHistogram, "refreshInterval", Duration.ofMinutes(1));
+    }
+
+    @Test
+    void testBucketsCoverPriceRangeIncludingEmptyOnes() {
+        PriceRange range = range(100, 1000);
+        List<PriceBucketCount> buckets = List.of(bucket(0, 5), bucket(3, 2));
+        when(adsRepository.findPriceRange()).thenReturn(range);
+        when(adsRepository.countByPriceBuckets(100, 226)).thenReturn(buckets);
+
+        List<PriceBucket> histogram = priceHistogram.get();
+
+        assertEquals(List.of(
+                new PriceBucket(100, 325, 5),
+                new PriceBucket(326, 551, 0),
+                new PriceBucket(552, 777, 0),
+                new PriceBucket(778, 1000, 2)), histogram);
+    }
+
+    @Test
+    void testHistogramIsReloadedOnlyWhenStale() {
+        PriceRange range = range(10, 10);
+        List<PriceBucketCount> buckets = List.of(bucket(0, 3));
+        when(adsRepository.findPriceRange()).thenReturn(range);
+        when(adsRepository.countByPriceBuckets(10, 1)).thenReturn(buckets);
+
+        assertEquals(List.of(new PriceBucket(10, 10, 3)), priceHistogram.get());
+        priceHistogram.get();
+
+        verify(adsRepository, times(1)).findPriceRange();
+    }
+
+    @Test
+    void testEmptyHistogramWithoutPrices() {
+        PriceRange range = range(null, null);
+        when(adsRepository.findPriceRange()).thenReturn(range);
+
+        assertTrue(priceHistogram.get().isEmpty());
+        verify(adsRepository, never()).countByPriceBuckets(anyInt(), anyInt());
+    }
+
+    private static PriceRange range(Integer min, Integer max) {
+        PriceRange range = mock(PriceRange.class);
+        when(range.getMinPrice()).thenReturn(min);
+        when(range.getMaxPrice()).thenReturn(max);
+        return range;
+    }
+
+    private static PriceBucketCount bucket(int index, long total) {
+        PriceBucketCount bucket = mock(PriceBucketCount.class);
+        when(bucket.getBucket()).thenReturn(index);
+        when(bucket.getTotal()).thenReturn(total);
+        return bucket;
+    }
+}
@@ -0,0 +1,192 @@
+package ru.skypro.homework.service.impl;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.skypro.homework.cache.CacheInvalidationBus;
+import ru.skypro.homework.dto.BulkAdsResult;
+import ru.skypro.homework.dto.BulkFormat;
+import ru.skypro.homework.entity.Ads;
+import ru.skypro.homework.entity.User;
+import ru.skypro.homework.exception.UserWithEmailNotFoundException;
+import ru.skypro.homework.repository.AdsRepository;
+import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.search.AdsSearchIndex;
+import ru.skypro.homework.service.AdsCounter;
+import ru.skypro.homework.service.ImageService;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.*;
+
+class AdsImportServiceImplTest {
+
+    private static final String EMAIL = "seller@example.com";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final AdsRepository adsRepository = mock(AdsRepository.class);
+    private final UserRepository userRepository = mock(UserRepository.class);
+    private final ImageService imageService = mock(ImageService.class);
+    private final AdsCounter adsCounter = mock(AdsCounter.class);
+    private final AdsSearchIndex adsSearchIndex = mock(AdsSearchIndex.class);
+    private final CacheInvalidationBus cacheInvalidationBus = mock(CacheInvalidationBus.class);
+    private final AtomicInteger ids = new AtomicInteger();
+    private AdsImportServiceImpl adsImportService;
+
+    @BeforeEach
+    void setUp() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(mock(PlatformTransactionManager.class));
+        adsImportService = new AdsImportServiceImpl(adsRepository, userRepository, imageService, adsCounter,
+                adsSearchIndex, cacheInvalidationBus, transactionTemplate, objectMapper, 2, 10);
+        User user = new User();
+        user.setId(1);
+        user.setEmail(EMAIL);
+        when(userRepository.findByEmail(EMAIL)).thenReturn(Optional.of(user));
+        when(adsRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Ads> adsList = invocation.getArgument(0);
+            adsList.forEach(ads -> ads.setId(ids.incrementAndGet()));
+            return adsList;
+        });
+        when(imageService.exists("bike.jpg")).thenReturn(true);
+    }
+
+    @Test
+    void testImportNdjsonInBatches() throws IOException {
+        List<BulkAdsResult> results = importAds(BulkFormat.NDJSON,
+                "{\"title\": \"Bike\", \"price\": 100, \"image\": \"bike.jpg\"}\n" +
+                "{\"title\": \"Scooter\", \"price\": 50}\n" +
+                "{\"title\": \"\", \"price\": 1}\n" +
+                "{\"title\": \"Car\", \"price\": -1}\n" +
+                "{\"title\": \"Boat\", \"image\": \"missing.jpg\"}\n" +
+                "{\"title\": \"Skates\"}\n");
+
+        assertEquals(List.of(
+                BulkAdsResult.created(1, 1),
+                BulkAdsResult.created(2, 2),
+                BulkAdsResult.failed(3, "Title is required"),
+                BulkAdsResult.failed(4, "Price must not be negative"),
+                BulkAdsResult.failed(5, "Image not found: missing.jpg"),
+                BulkAdsResult.created(6, 3)
+        ), results);
+        verify(adsRepository, times(2)).saveAll(anyList());
+        verify(adsCounter).add(2);
+        verify(adsCounter).add(1);
+        verify(adsSearchIndex, times(3)).index(any(Ads.class));
+        verify(cacheInvalidationBus).adsChanged(List.of(1, 2));
+    }
+
+    @Test
+    void testInvalidRowsCountTowardsBatch() throws IOException {
+        List<BulkAdsResult> results = importAds(BulkFormat.NDJSON,
+                "{\"title\": \"Bike\"}\n" +
+                "{\"title\": \"\"}\n" +
+                "{\"title\": \"\"}\n" +
+                "{\"title\": \"Scooter\"}\n");
+
+        assertEquals(List.of(
+                BulkAdsResult.created(1, 1),
+                BulkAdsResult.failed(2, "Title is required"),
+                BulkAdsResult.failed(3, "Title is required"),
+                BulkAdsResult.created(4, 2)
+        ), results);
+        verify(adsRepository, times(2)).saveAll(anyList());
+        verify(adsCounter, times(2)).add(1);
+    }
+
+    @Test
+    void testImportCsv() throws IOException {
+        List<Ads> saved = new ArrayList<>();
+        when(adsRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<Ads> adsList = invocation.getArgument(0);
+            adsList.forEach(ads -> ads.setId(ids.incrementAndGet()));
+            saved.addAll(adsList);
+            return adsList;
+        });
+
+        List<BulkAdsResult> results = importAds(BulkFormat.CSV,
+                "title,description,price,image\n" +
+                "\"Bike, red\",Road bike,100,bike.jpg\n" +
+                "Scooter,,abc,\n");
+
+        assertEquals(BulkAdsResult.created(1, 1), results.get(0));
+        assertEquals(2, results.get(1).getRow());
+        assertTrue(results.get(1).getError().startsWith("Invalid row"));
+        assertEquals("Bike, red", saved.get(0).getTitle());
+        assertEquals("/ads/image/bike.jpg", saved.get(0).getImage());
+        assertEquals(EMAIL, saved.get(0).getUser().getEmail());
+    }
+
+    @Test
+    void testMalformedNdjsonStopsImport() throws IOException {
+        List<BulkAdsResult> results = importAds(BulkFormat.NDJSON,
+                "{\"title\": \"Bike\"}\n" +
+                "{\"title\": \n");
+
+        assertEquals(2, results.size());
+        assertEquals(BulkAdsResult.created(1, 1), results.get(0));
+        assertTrue(results.get(1).getError().startsWith("Malformed row"));
+    }
+
+    @Test
+    void testFailedBatchIsSavedOneByOne() throws IOException {
+        when(adsRepository.saveAll(anyList())).thenThrow(new DataIntegrityViolationException("batch"));
+        when(adsRepository.save(any(Ads.class))).thenAnswer(invocation -> {
+            Ads ads = invocation.getArgument(0);
+            if ("Bad".equals(ads.getTitle())) {
+                throw new DataIntegrityViolationException("row");
+            }
+            ads.setId(ids.incrementAndGet());
+            return ads;
+        });
+
+        List<BulkAdsResult> results = importAds(BulkFormat.NDJSON,
+                "{\"title\": \"Bad\"}\n{\"title\": \"Good\"}\n");
+
+        assertEquals(List.of(
+                BulkAdsResult.failed(1, "Failed to save ad"),
+                BulkAdsResult.created(2, 1)
+        ), results);
+        verify(adsCounter).add(1);
+    }
+
+    @Test
+    void testRowLimit() throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < 12; i++) {
+            body.append("{\"title\": \"Ad ").append(i).append("\"}\n");
+        }
+
+        List<BulkAdsResult> results = importAds(BulkFormat.NDJSON, body.toString());
+
+        assertEquals(11, results.size());
+        assertEquals(BulkAdsResult.failed(11, "Row limit of 10 exceeded"), results.get(10));
+    }
+
+    @Test
+    void testUnknownUser() {
+        assertThrows(UserWithEmailNotFoundException.class, () -> adsImportService.importAds(
+                new ByteArrayInputStream(new byte[0]), BulkFormat.NDJSON, "unknown@example.com", new ByteArrayOutputStream()));
+    }
+
+    private List<BulkAdsResult> importAds(BulkFormat format, String body) throws IOException {
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        adsImportService.importAds(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), format, EMAIL, outputStream);
+        List<BulkAdsResult> results = new ArrayList<>();
+        objectMapper.readerFor(BulkAdsResult.class).readValues(outputStream.toByteArray())
+                .forEachRemaining(result -> results.add((BulkAdsResult) result));
+        return results;
+    }
+}
@@ -1,27 +1,49 @@
 package ru.skypro.homework.service.impl;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.cache.CacheInvalidationBus;
+import ru.skypro.homework.cache.FullAdsCache;
 import ru.skypro.homework.dto.*;
 import ru.skypro.homework.entity.Ads;
 import ru.skypro.homework.entity.Comment;
 import ru.skypro.homework.entity.User;
 import ru.skypro.homework.exception.AdsNotFoundException;
+import ru.skypro.homework.exception.InvalidBulkDeleteException;
+import ru.skypro.homework.exception.InvalidCursorException;
 import ru.skypro.homework.exception.UserWithEmailNotFoundException;
 import ru.skypro.homework.mapper.AdsMapper;
 import ru.skypro.homework.mapper.CommentMapper;
 import ru.skypro.homework.repository.AdsRepository;
+import ru.skypro.homework.repository.AdsSearchHit;
 import ru.skypro.homework.repository.CommentRepository;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.search.AdsSearchIndex;
+import ru.skypro.homework.search.SearchHit;
+import ru.skypro.homework.service.AdsCounter;
 import ru.skypro.homework.service.ImageService;
+import ru.skypro.homework.service.PageCursor;
+import ru.skypro.homework.service.PriceHistogram;
 
+import javax.persistence.EntityManager;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -40,6 +62,20 @@ class AdsServiceImplTest {
     private CommentRepository commentRepository;
     @Mock
     private CommentMapper commentMapper;
+    @Mock
+    private AdsCounter adsCounter;
+    @Mock
+    private EntityManager entityManager;
+    @Spy
+    private ObjectMapper objectMapper = new ObjectMapper();
+    @Mock
+    private AdsSearchIndex adsSearchIndex;
+    @Mock
+    private PriceHistogram priceHistogram;
+    @Mock
+    private FullAdsCache fullAdsCache;
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
     @InjectMocks
     private AdsServiceImpl adsService;
     @BeforeEach
@@ -68,20 +104,238 @@ class AdsServiceImplTest {
 
         List<AdsDto> adsDtoList = Arrays.asList(adsDto1, adsDto2);
 
-        ResponseWrapperAds expectedResponse = new ResponseWrapperAds();
-        expectedResponse.setCount(adsList.size());
-        expectedResponse.setResults(adsDtoList);
-
-        when(adsRepository.findAll()).thenReturn(adsList);
+        when(adsRepository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 21))).thenReturn(adsList);
         when(adsMapper.toDtos(adsList)).thenReturn(adsDtoList);
+        when(adsCounter.get()).thenReturn(42L);
+
+        List<PriceBucket> histogram = List.of(new PriceBucket(0, 99, 2));
+        when(priceHistogram.get()).thenReturn(histogram);
 
-        ResponseWrapperAds response = adsService.getAllAds();
+        ResponseWrapperAds response = adsService.getAllAds(null, null, AdsSort.ID, null, 20);
 
-        assertEquals(expectedResponse.getCount(), response.getCount());
-        assertEquals(expectedResponse.getResults(), response.getResults());
+        assertEquals(42, response.getCount());
+        assertEquals(histogram, response.getPriceHistogram());
+        assertEquals(adsDtoList, response.getResults());
+        assertNull(response.getNext());
 
-        verify(adsRepository, times(1)).findAll();
+        verify(adsRepository, times(1)).findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 21));
         verify(adsMapper, times(1)).toDtos(adsList);
+        verify(adsRepository, never()).findAll();
+    }
+
+    @Test
+    public void testGetAllAdsReturnsCursorOfNextPage() {
+        Ads ads1 = new Ads();
+        ads1.setId(5);
+        Ads ads2 = new Ads();
+        ads2.setId(7);
+        Ads ads3 = new Ads();
+        ads3.setId(9);
+        List<Ads> firstPage = Arrays.asList(ads1, ads2, ads3);
+        when(adsRepository.findByIdGreaterThanOrderByIdAsc(0, PageRequest.of(0, 3))).thenReturn(firstPage);
+
+        ResponseWrapperAds response = adsService.getAllAds(null, null, AdsSort.ID, null, 2);
+
+        verify(adsMapper).toDtos(Arrays.asList(ads1, ads2));
+        assertNotNull(response.getNext());
+
+        adsService.getAllAds(null, null, AdsSort.ID, response.getNext(), 2);
+
+        verify(adsRepository).findByIdGreaterThanOrderByIdAsc(7, PageRequest.of(0, 3));
+    }
+
+    @Test
+    public void testGetAllAdsFilteredByPriceSortedByPrice() {
+        Ads ads1 = new Ads();
+        ads1.setId(8);
+        ads1.setPrice(100);
+        Ads ads2 = new Ads();
+        ads2.setId(3);
+        ads2.setPrice(150);
+        Ads ads3 = new Ads();
+        ads3.setId(4);
+        ads3.setPrice(150);
+        when(adsRepository.findFeedPage(100, 200, AdsSort.PRICE, null, null, 3))
+                .thenReturn(Arrays.asList(ads1, ads2, ads3));
+        when(adsRepository.countByPriceRange(100, 200)).thenReturn(10L);
+
+        ResponseWrapperAds response = adsService.getAllAds(100, 200, AdsSort.PRICE, null, 2);
+
+        assertEquals(10, response.getCount());
+        assertEquals(PageCursor.encode(150, 3), response.getNext());
+        verify(adsMapper).toDtos(Arrays.asList(ads1, ads2));
+        verifyNoInteractions(adsCounter);
+
+        adsService.getAllAds(100, 200, AdsSort.PRICE, response.getNext(), 2);
+
+        verify(adsRepository).findFeedPage(100, 200, AdsSort.PRICE, 150, 3, 3);
+    }
+
+    @Test
+    public void testGetAllAdsSortedByPriceCountsOnlyPricedAds() {
+        when(adsRepository.findFeedPage(null, null, AdsSort.PRICE, null, null, 21)).thenReturn(List.of());
+        when(adsRepository.countByPriceRange(null, null)).thenReturn(4L);
+
+        ResponseWrapperAds response = adsService.getAllAds(null, null, AdsSort.PRICE, null, 20);
+
+        assertEquals(4, response.getCount());
+        verifyNoInteractions(adsCounter);
+    }
+
+    @Test
+    public void testGetAllAdsSortedByNewest() {
+        LocalDateTime createdAt = LocalDateTime.of(2023, 5, 1, 12, 0);
+        Ads ads1 = new Ads();
+        ads1.setId(9);
+        ads1.setCreatedAt(createdAt);
+        Ads ads2 = new Ads();
+        ads2.setId(7);
+        ads2.setCreatedAt(createdAt.minusDays(1));
+        String cursor = PageCursor.encode(createdAt.plusDays(1), 10);
+        when(adsRepository.findFeedPage(null, null, AdsSort.NEWEST, createdAt.plusDays(1), 10, 2))
+                .thenReturn(Arrays.asList(ads1, ads2));
+        when(adsCounter.get()).thenReturn(2L);
+
+        ResponseWrapperAds response = adsService.getAllAds(null, null, AdsSort.NEWEST, cursor, 1);
+
+        assertEquals(2, response.getCount());
+        assertEquals(PageCursor.encode(createdAt, 9), response.getNext());
+        verify(adsRepository, never()).findByIdGreaterThanOrderByIdAsc(anyInt(), any());
+    }
+
+    @Test
+    public void testGetAllAdsWithCursorOfAnotherSort() {
+        assertThrows(InvalidCursorException.class,
+                () -> adsService.getAllAds(null, null, AdsSort.PRICE, PageCursor.encode(7), 20));
+        verifyNoInteractions(adsRepository);
+    }
+
+    @Test
+    public void testGetAllAdsWithInvalidCursor() {
+        assertThrows(InvalidCursorException.class, () -> adsService.getAllAds(null, null, AdsSort.ID, "not a cursor", 20));
+        verifyNoInteractions(adsRepository);
+    }
+
+    @Test
+    public void testSearchAdsFullText() {
+        ReflectionTestUtils.setField(adsService, "fullTextSearch", true);
+        Ads ads1 = new Ads();
+        ads1.setId(1);
+        Ads ads2 = new Ads();
+        ads2.setId(2);
+        AdsDto adsDto1 = new AdsDto();
+        adsDto1.setPk(1);
+        AdsDto adsDto2 = new AdsDto();
+        adsDto2.setPk(2);
+        List<AdsSearchHit> hits = List.of(hit(2, 0.9), hit(1, 0.5), hit(3, 0.1));
+        when(adsRepository.searchFullText("bike", 3)).thenReturn(hits);
+        when(adsRepository.findAllById(List.of(2, 1))).thenReturn(List.of(ads1, ads2));
+        when(adsMapper.toAdsDto(ads1)).thenReturn(adsDto1);
+        when(adsMapper.toAdsDto(ads2)).thenReturn(adsDto2);
+
+        ResponseWrapperAds result = adsService.searchAds("bike", null, 2);
+
+        assertEquals(List.of(adsDto2, adsDto1), result.getResults());
+        assertEquals(PageCursor.encode(0.5, 1), result.getNext());
+    }
+
+    @Test
+    public void testSearchAdsFullTextAfterCursor() {
+        ReflectionTestUtils.setField(adsService, "fullTextSearch", true);
+        when(adsRepository.searchFullTextAfter("bike", 0.5, 1, 3)).thenReturn(List.of());
+
+        ResponseWrapperAds result = adsService.searchAds("bike", PageCursor.encode(0.5, 1), 2);
+
+        assertTrue(result.getResults().isEmpty());
+        assertNull(result.getNext());
+    }
+
+    @Test
+    public void testSearchAdsByPatternEscapesWildcards() {
+        ReflectionTestUtils.setField(adsService, "fullTextSearch", false);
+        Ads ads = new Ads();
+        ads.setId(5);
+        when(adsRepository.searchByPattern("%100\\%\\_bike%", Integer.MAX_VALUE, PageRequest.of(0, 21)))
+                .thenReturn(List.of(ads));
+        when(adsRepository.findAllById(List.of(5))).thenReturn(List.of(ads));
+        when(adsMapper.toAdsDto(ads)).thenReturn(new AdsDto());
+
+        ResponseWrapperAds result = adsService.searchAds("100%_Bike", null, 20);
+
+        assertEquals(1, result.getResults().size());
+        assertNull(result.getNext());
+        verify(adsRepository, never()).searchFullText(anyString(), anyInt());
+    }
+
+    @Test
+    public void testSearchAdsWithBlankQuery() {
+        ResponseWrapperAds result = adsService.searchAds(" ", null, 20);
+
+        assertTrue(result.getResults().isEmpty());
+        verifyNoInteractions(adsRepository);
+    }
+
+    @Test
+    public void testSuggestAdsUsesInMemoryIndex() {
+        Ads ads1 = new Ads();
+        ads1.setId(1);
+        Ads ads2 = new Ads();
+        ads2.setId(2);
+        AdsDto adsDto1 = new AdsDto();
+        adsDto1.setPk(1);
+        AdsDto adsDto2 = new AdsDto();
+        adsDto2.setPk(2);
+        when(adsSearchIndex.isEnabled()).thenReturn(true);
+        when(adsSearchIndex.search("bi", 10)).thenReturn(List.of(new SearchHit(2, 3.0), new SearchHit(1, 1.0)));
+        when(adsRepository.findAllById(List.of(2, 1))).thenReturn(List.of(ads1, ads2));
+        when(adsMapper.toAdsDto(ads1)).thenReturn(adsDto1);
+        when(adsMapper.toAdsDto(ads2)).thenReturn(adsDto2);
+
+        ResponseWrapperAds result = adsService.suggestAds("bi", 10);
+
+        assertEquals(List.of(adsDto2, adsDto1), result.getResults());
+        verify(adsRepository, never()).searchFullText(anyString(), anyInt());
+    }
+
+    @Test
+    public void testSuggestAdsFallsBackToSearch() {
+        ReflectionTestUtils.setField(adsService, "fullTextSearch", true);
+        when(adsSearchIndex.isEnabled()).thenReturn(false);
+        when(adsRepository.searchFullText("bike", 11)).thenReturn(List.of());
+
+        ResponseWrapperAds result = adsService.suggestAds("bike", 10);
+
+        assertTrue(result.getResults().isEmpty());
+        verify(adsSearchIndex, never()).search(anyString(), anyInt());
+    }
+
+    private static AdsSearchHit hit(Integer id, double rank) {
+        AdsSearchHit hit = mock(AdsSearchHit.class);
+        when(hit.getId()).thenReturn(id);
+        when(hit.getRank()).thenReturn(rank);
+        return hit;
+    }
+
+    @Test
+    public void testExportAds() throws IOException {
+        Ads ads1 = new Ads();
+        ads1.setId(1);
+        Ads ads2 = new Ads();
+        ads2.setId(2);
+        AdsDto adsDto1 = new AdsDto();
+        adsDto1.setPk(1);
+        AdsDto adsDto2 = new AdsDto();
+        adsDto2.setPk(2);
+        when(adsRepository.streamAllByOrderByIdAsc()).thenReturn(Stream.of(ads1, ads2));
+        when(adsMapper.toAdsDto(ads1)).thenReturn(adsDto1);
+        when(adsMapper.toAdsDto(ads2)).thenReturn(adsDto2);
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
+        adsService.exportAds(outputStream);
+
+        AdsDto[] result = objectMapper.readValue(outputStream.toString(StandardCharsets.UTF_8), AdsDto[].class);
+        assertArrayEquals(new AdsDto[]{adsDto1, adsDto2}, result);
+        verify(adsRepository, never()).findAll();
     }
 
     @Test
@@ -139,6 +393,8 @@ class AdsServiceImplTest {
         verify(adsRepository).save(ads);
         verify(adsMapper).toAdsFromCreateAds(createAds);
         verify(adsMapper).toAdsDto(ads);
+        verify(adsSearchIndex).index(ads);
+        assertNotNull(ads.getCreatedAt());
     }
 
     @Test
@@ -158,22 +414,30 @@ class AdsServiceImplTest {
     @Test
     void testGetAdsByIdFound() {
         Integer id = 123;
-        Ads ads = new Ads();
-        when(adsRepository.findById(id)).thenReturn(Optional.of(ads));
         FullAds fullAds = new FullAds();
-        when(adsMapper.toFullAds(ads)).thenReturn(fullAds);
+        when(adsRepository.findFullAdsById(id)).thenReturn(Optional.of(fullAds));
         FullAds result = adsService.getAds(id);
         assertEquals(fullAds, result);
-        verify(adsRepository).findById(id);
-        verify(adsMapper).toFullAds(ads);
+        verify(adsRepository).findFullAdsById(id);
+        verifyNoInteractions(adsMapper);
+    }
+
+    @Test
+    void testGetAdsJsonUsesCache() {
+        Integer id = 123;
+        byte[] json = "{}".getBytes(StandardCharsets.UTF_8);
+        when(fullAdsCache.get(eq(id), any())).thenReturn(json);
+
+        assertSame(json, adsService.getAdsJson(id));
+        verifyNoInteractions(adsRepository);
     }
 
     @Test
     void testGetAdsByIdNotFound() {
         Integer id = 123;
-        when(adsRepository.findById(id)).thenReturn(Optional.empty());
+        when(adsRepository.findFullAdsById(id)).thenReturn(Optional.empty());
         assertThrows(AdsNotFoundException.class, () -> adsService.getAds(id));
-        verify(adsRepository).findById(id);
+        verify(adsRepository).findFullAdsById(id);
         verifyNoInteractions(adsMapper);
     }
     @Test
@@ -182,16 +446,49 @@ class AdsServiceImplTest {
         Ads ads = new Ads();
         when(adsRepository.findById(id)).thenReturn(Optional.of(ads));
 
-        doNothing().when(commentRepository).deleteAllByAds_Id(id);
+        when(commentRepository.deleteByAdsId(id)).thenReturn(3);
 
         doNothing().when(imageService).deleteFileIfNotNull(anyString());
 
         adsService.removeAd(id);
 
-        verify(commentRepository).deleteAllByAds_Id(id);
+        verify(commentRepository).deleteByAdsId(id);
         verify(adsRepository).findById(id);
         verify(imageService).deleteFileIfNotNull(ads.getImage());
         verify(adsRepository).delete(ads);
+        verify(adsCounter).decrement();
+        verify(adsSearchIndex).remove(id);
+        verify(fullAdsCache).invalidate(id);
+        verify(cacheInvalidationBus).adsChanged(id);
+    }
+
+    @Test
+    void testRemoveAdDeletesImageOnlyAfterCommit() {
+        Integer id = 123;
+        Ads ads = new Ads();
+        ads.setImage("/ads/image/bike.jpg");
+        when(adsRepository.findById(id)).thenReturn(Optional.of(ads));
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            adsService.removeAd(id);
+            verify(adsRepository).delete(ads);
+            verifyNoInteractions(imageService);
+
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+            verify(imageService).deleteFileIfNotNull("/ads/image/bike.jpg");
+            verify(adsSearchIndex).remove(id);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void testRemoveMissingAdDeletesNothing() {
+        when(adsRepository.findById(123)).thenReturn(Optional.empty());
+
+        assertThrows(AdsNotFoundException.class, () -> adsService.removeAd(123));
+        verifyNoInteractions(commentRepository, imageService);
     }
 
     @Test
@@ -209,30 +506,88 @@ class AdsServiceImplTest {
         verify(adsMapper).updateAds(createAds, ads);
         verify(adsRepository).save(ads);
         verify(adsMapper).toAdsDto(ads);
+        verify(adsSearchIndex).index(ads);
+        verify(fullAdsCache).invalidate(id);
+        verify(cacheInvalidationBus).adsChanged(id);
     }
 
     @Test
     void testGetComments() {
         Integer id = 123;
-        List<Comment> commentList = new ArrayList<>();
-        Comment comment1 = new Comment();
-        Comment comment2 = new Comment();
-        commentList.add(comment1);
-        commentList.add(comment2);
-        when(commentRepository.findAllByAdsId(id)).thenReturn(commentList);
         List<CommentDto> commentDtoList = new ArrayList<>();
-        CommentDto commentDto1 = new CommentDto();
-        CommentDto commentDto2 = new CommentDto();
+        CommentDto commentDto1 = new CommentDto(1, null, "Ivan", LocalDateTime.of(2023, 1, 1, 10, 0), 10, "First");
+        CommentDto commentDto2 = new CommentDto(2, null, "Petr", LocalDateTime.of(2023, 1, 1, 11, 0), 11, "Second");
         commentDtoList.add(commentDto1);
         commentDtoList.add(commentDto2);
-        when(commentMapper.toListDto(commentList)).thenReturn(commentDtoList);
+        when(commentRepository.findCommentDtosByAdsId(id, PageRequest.of(0, 21))).thenReturn(commentDtoList);
         ResponseWrapperComment responseWrapperComment = new ResponseWrapperComment();
         responseWrapperComment.setResults(commentDtoList);
         responseWrapperComment.setCount(commentDtoList.size());
-        ResponseWrapperComment result = adsService.getComments(id);
+        responseWrapperComment.setLatest(PageCursor.encode(commentDto2.getCreatedAt(), 11));
+        ResponseWrapperComment result = adsService.getComments(id, null, 20);
         assertEquals(responseWrapperComment, result);
-        verify(commentRepository).findAllByAdsId(id);
-        verify(commentMapper).toListDto(commentList);
+        verify(commentRepository).findCommentDtosByAdsId(id, PageRequest.of(0, 21));
+        verifyNoMoreInteractions(commentRepository);
+        verifyNoInteractions(commentMapper);
+    }
+
+    @Test
+    void testGetCommentsFirstPageCountsAllComments() {
+        Integer id = 123;
+        LocalDateTime createdAt = LocalDateTime.of(2023, 1, 1, 10, 0);
+        when(commentRepository.findCommentDtosByAdsId(id, PageRequest.of(0, 2))).thenReturn(List.of(
+                new CommentDto(1, null, "Ivan", createdAt, 10, "First"),
+                new CommentDto(2, null, "Petr", createdAt.plusMinutes(1), 11, "Second")));
+        when(commentRepository.countByAdsId(id)).thenReturn(5L);
+
+        ResponseWrapperComment result = adsService.getComments(id, null, 1);
+
+        assertEquals(5, result.getCount());
+        assertNotNull(result.getNext());
+    }
+
+    @Test
+    void testGetCommentsReturnsCursorOfNextPage() {
+        Integer id = 123;
+        LocalDateTime createdAt = LocalDateTime.of(2023, 1, 1, 10, 0);
+        CommentDto commentDto1 = new CommentDto(1, null, "Ivan", createdAt, 10, "First");
+        CommentDto commentDto2 = new CommentDto(2, null, "Petr", createdAt.plusMinutes(1), 11, "Second");
+        CommentDto commentDto3 = new CommentDto(3, null, "Anna", createdAt.plusMinutes(2), 12, "Third");
+        String cursor = PageCursor.encode(createdAt.minusMinutes(1), 9);
+        when(commentRepository.findCommentDtosByAdsIdAfter(id, createdAt.minusMinutes(1), 9, PageRequest.of(0, 3)))
+                .thenReturn(List.of(commentDto1, commentDto2, commentDto3));
+
+        ResponseWrapperComment result = adsService.getComments(id, cursor, 2);
+
+        assertEquals(List.of(commentDto1, commentDto2), result.getResults());
+        assertNull(result.getCount());
+        assertEquals(PageCursor.encode(commentDto2.getCreatedAt(), 11), result.getNext());
+        assertEquals(result.getNext(), result.getLatest());
+    }
+
+    @Test
+    void testGetCommentsWithoutNewCommentsKeepsCursor() {
+        Integer id = 123;
+        LocalDateTime createdAt = LocalDateTime.of(2023, 1, 1, 10, 0);
+        String since = PageCursor.encode(createdAt, 10);
+        when(commentRepository.findCommentDtosByAdsIdAfter(id, createdAt, 10, PageRequest.of(0, 21)))
+                .thenReturn(List.of());
+
+        ResponseWrapperComment result = adsService.getComments(id, since, 20);
+
+        assertTrue(result.getResults().isEmpty());
+        assertNull(result.getNext());
+        assertEquals(since, result.getLatest());
+        assertNull(result.getCount());
+        verify(commentRepository).findCommentDtosByAdsIdAfter(id, createdAt, 10, PageRequest.of(0, 21));
+        verifyNoMoreInteractions(commentRepository);
+    }
+
+    @Test
+    void testGetCommentsWithInvalidCursor() {
+        assertThrows(InvalidCursorException.class,
+                () -> adsService.getComments(123, PageCursor.encode("yesterday", 1), 20));
+        verifyNoInteractions(commentRepository);
     }
 
     @Test
@@ -293,14 +648,20 @@ class AdsServiceImplTest {
         Integer id = 123;
         MultipartFile image = new MockMultipartFile("test.jpg", new byte[0]);
         Ads ads = new Ads();
+        ads.setImage("/ads/image/old.jpg");
         when(adsRepository.findById(id)).thenReturn(Optional.of(ads));
+        when(imageService.saveImage(image, "/ads")).thenReturn("/ads/image/new.jpg");
 
         adsService.updateAdsImage(id, image);
 
-        verify(adsRepository).findById(id);
-        verify(imageService).deleteFileIfNotNull(ads.getImage());
-        verify(imageService).saveImage(image, "/ads");
-        verify(adsRepository).save(ads);
+        assertEquals("/ads/image/new.jpg", ads.getImage());
+        InOrder inOrder = inOrder(imageService, adsRepository);
+        inOrder.verify(adsRepository).findById(id);
+        inOrder.verify(imageService).saveImage(image, "/ads");
+        inOrder.verify(adsRepository).save(ads);
+        inOrder.verify(imageService).deleteFileIfNotNull("/ads/image/old.jpg");
+        verify(fullAdsCache).invalidate(id);
+        verify(cacheInvalidationBus).adsChanged(id);
     }
     @Test
     void testGetCommentDto() {
@@ -319,15 +680,49 @@ class AdsServiceImplTest {
     @Test
     void testGetUserNameOfComment() {
         Integer id = 123;
-        Comment comment = new Comment();
-        User user = new User();
-        user.setEmail("test@example.com");
-        comment.setUser(user);
-        when(commentRepository.findById(id)).thenReturn(Optional.of(comment));
+        when(commentRepository.findAuthorEmailById(id)).thenReturn(Optional.of("test@example.com"));
 
         String result = adsService.getUserNameOfComment(id);
 
         assertEquals("test@example.com", result);
-        verify(commentRepository).findById(id);
+        verify(commentRepository).findAuthorEmailById(id);
+    }
+
+    @Test
+    void testDeleteComments() {
+        when(commentRepository.deleteByIdIn(List.of(1, 2, 3))).thenReturn(2);
+
+        BulkDeleteResult result = adsService.deleteComments(List.of(1, 2, 3));
+
+        assertEquals(2, result.getDeleted());
+    }
+
+    @Test
+    void testDeleteCommentsRejectsEmptyAndOversizedLists() {
+        List<Integer> tooMany = new ArrayList<>();
+        for (int i = 0; i <= 1000; i++) {
+            tooMany.add(i);
+        }
+
+        assertThrows(InvalidBulkDeleteException.class, () -> adsService.deleteComments(List.of()));
+        assertThrows(InvalidBulkDeleteException.class, () -> adsService.deleteComments(tooMany));
+        verify(commentRepository, never()).deleteByIdIn(any());
+    }
+
+    @Test
+    void testDeleteCommentsByAuthor() {
+        when(commentRepository.deleteByUserId(7)).thenReturn(5);
+
+        assertEquals(5, adsService.deleteCommentsByAuthor(7).getDeleted());
+    }
+
+    @Test
+    void testDeleteCommentsByAds() {
+        LocalDateTime since = LocalDateTime.of(2023, 1, 1, 0, 0);
+        when(commentRepository.deleteByAdsIdSince(1, since)).thenReturn(3);
+        when(commentRepository.deleteByAdsId(1)).thenReturn(4);
+
+        assertEquals(3, adsService.deleteCommentsByAds(1, since).getDeleted());
+        assertEquals(4, adsService.deleteCommentsByAds(1, null).getDeleted());
     }
 }
@@ -6,11 +6,14 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import ru.skypro.homework.dto.AuthTokens;
 import ru.skypro.homework.dto.Register;
 import ru.skypro.homework.dto.Role;
 import ru.skypro.homework.entity.User;
 import ru.skypro.homework.mapper.UserMapper;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.security.TokenClaims;
+import ru.skypro.homework.security.TokenService;
 
 import java.util.Optional;
 
@@ -26,6 +29,8 @@ class AuthServiceImplTest {
     private PasswordEncoder passwordEncoder;
     @Mock
     private UserMapper userMapper;
+    @Mock
+    private TokenService tokenService;
     @InjectMocks
     private AuthServiceImpl authService;
 
@@ -40,12 +45,16 @@ class AuthServiceImplTest {
         String password = "password";
 
         User user = new User();
+        user.setEmail(userName);
         user.setPassword("encodedPassword");
+        user.setRole(Role.USER);
+        AuthTokens tokens = new AuthTokens();
 
         when(userRepository.findByEmail(userName)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(password, user.getPassword())).thenReturn(true);
+        when(tokenService.issueTokens(userName, Role.USER, "encodedPassword")).thenReturn(tokens);
 
-        assertTrue(authService.login(userName, password));
+        assertEquals(Optional.of(tokens), authService.login(userName, password));
     }
 
     @Test
@@ -55,7 +64,8 @@ class AuthServiceImplTest {
 
         when(userRepository.findByEmail(userName)).thenReturn(Optional.empty());
 
-        assertFalse(authService.login(userName, password));
+        assertTrue(authService.login(userName, password).isEmpty());
+        verifyNoInteractions(tokenService);
     }
 
     @Test
@@ -69,7 +79,50 @@ class AuthServiceImplTest {
         when(userRepository.findByEmail(userName)).thenReturn(Optional.of(user));
         when(passwordEncoder.matches(password, user.getPassword())).thenReturn(false);
 
-        assertFalse(authService.login(userName, password));
+        assertTrue(authService.login(userName, password).isEmpty());
+        verifyNoInteractions(tokenService);
+    }
+
+    @Test
+    public void testRefresh_Success() {
+        String userName = "user@example.com";
+        User user = new User();
+        user.setEmail(userName);
+        user.setPassword("encodedPassword");
+        user.setRole(Role.USER);
+        AuthTokens tokens = new AuthTokens();
+
+        when(tokenService.parseRefreshToken("refresh"))
+                .thenReturn(Optional.of(new TokenClaims(userName, null, "fingerprint")));
+        when(userRepository.findByEmail(userName)).thenReturn(Optional.of(user));
+        when(tokenService.fingerprint("encodedPassword")).thenReturn("fingerprint");
+        when(tokenService.issueTokens(userName, Role.USER, "encodedPassword")).thenReturn(tokens);
+
+        assertEquals(Optional.of(tokens), authService.refresh("refresh"));
+    }
+
+    @Test
+    public void testRefresh_PasswordChanged() {
+        String userName = "user@example.com";
+        User user = new User();
+        user.setEmail(userName);
+        user.setPassword("newEncodedPassword");
+
+        when(tokenService.parseRefreshToken("refresh"))
+                .thenReturn(Optional.of(new TokenClaims(userName, null, "fingerprint")));
+        when(userRepository.findByEmail(userName)).thenReturn(Optional.of(user));
+        when(tokenService.fingerprint("newEncodedPassword")).thenReturn("otherFingerprint");
+
+        assertTrue(authService.refresh("refresh").isEmpty());
+        verify(tokenService, never()).issueTokens(any(), any(), any());
+    }
+
+    @Test
+    public void testRefresh_InvalidToken() {
+        when(tokenService.parseRefreshToken("refresh")).thenReturn(Optional.empty());
+
+        assertTrue(authService.refresh("refresh").isEmpty());
+        verifyNoInteractions(userRepository);
     }
 
     @Test
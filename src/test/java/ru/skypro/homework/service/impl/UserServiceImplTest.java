@@ -2,20 +2,27 @@ package ru.skypro.homework.service.impl;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.web.multipart.MultipartFile;
+import ru.skypro.homework.cache.CacheInvalidationBus;
+import ru.skypro.homework.cache.FullAdsCache;
 import ru.skypro.homework.dto.NewPassword;
 import ru.skypro.homework.dto.UserDto;
 import ru.skypro.homework.entity.User;
 import ru.skypro.homework.exception.UserNotFoundException;
 import ru.skypro.homework.exception.UserWithEmailNotFoundException;
 import ru.skypro.homework.mapper.UserMapper;
+import ru.skypro.homework.repository.AdsRepository;
 import ru.skypro.homework.repository.UserRepository;
+import ru.skypro.homework.security.CredentialsCache;
+import ru.skypro.homework.security.MyUserDetailsService;
 import ru.skypro.homework.service.ImageService;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -30,6 +37,16 @@ class UserServiceImplTest {
     private UserMapper userMapper;
     @Mock
     private ImageService imageService;
+    @Mock
+    private CredentialsCache credentialsCache;
+    @Mock
+    private MyUserDetailsService myUserDetailsService;
+    @Mock
+    private AdsRepository adsRepository;
+    @Mock
+    private FullAdsCache fullAdsCache;
+    @Mock
+    private CacheInvalidationBus cacheInvalidationBus;
 
     @InjectMocks
     private UserServiceImpl userService;
@@ -58,6 +75,9 @@ class UserServiceImplTest {
         assertEquals("newPasswordEncoded", user.getPassword());
         verify(userRepository).save(user);
         verify(encoder).encode(newPassword.getNewPassword());
+        verify(credentialsCache).invalidate(email);
+        verify(myUserDetailsService).evict(email);
+        verify(cacheInvalidationBus).userChanged(email);
     }
 
     @Test
@@ -94,6 +114,7 @@ class UserServiceImplTest {
         verify(encoder).matches(newPassword.getCurrentPassword(), user.getPassword());
         verifyNoMoreInteractions(encoder);
         verifyNoMoreInteractions(userRepository);
+        verifyNoInteractions(credentialsCache);
     }
 
     @Test
@@ -130,8 +151,10 @@ class UserServiceImplTest {
         UserDto userDto = new UserDto();
         userDto.setEmail(email);
         User user = new User();
+        user.setId(7);
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
         when(userMapper.toUserDto(user)).thenReturn(userDto);
+        when(adsRepository.findIdsByUserId(7)).thenReturn(List.of(1, 2));
 
         UserDto result = userService.updateUser(userDto, email);
 
@@ -141,6 +164,11 @@ class UserServiceImplTest {
         verify(userMapper).updateUserFromUserDto(userDto, user);
         verify(userRepository).save(user);
         verify(userMapper).toUserDto(user);
+        verify(credentialsCache).invalidate(email);
+        verify(myUserDetailsService).evict(email);
+        verify(fullAdsCache).invalidateAll(List.of(1, 2));
+        verify(cacheInvalidationBus).userChanged(email);
+        verify(cacheInvalidationBus).adsChanged(List.of(1, 2));
     }
 
     @Test
@@ -161,16 +189,21 @@ class UserServiceImplTest {
         String email = "test@example.com";
         User user = new User();
         user.setEmail(email);
+        user.setImage("/users/image/old.jpg");
         MultipartFile image = mock(MultipartFile.class);
 
         when(userRepository.findByEmail(email)).thenReturn(Optional.of(user));
+        when(imageService.saveImage(image, "/users")).thenReturn("/users/image/new.jpg");
 
         userService.updateAvatar(image, email);
 
-        verify(userRepository).findByEmail(email);
-        verify(imageService).deleteFileIfNotNull(user.getImage());
-        verify(imageService).saveImage(image, "/users");
-        verify(userRepository).save(user);
+        assertEquals("/users/image/new.jpg", user.getImage());
+        InOrder inOrder = inOrder(imageService, userRepository);
+        inOrder.verify(userRepository).findByEmail(email);
+        inOrder.verify(imageService).saveImage(image, "/users");
+        inOrder.verify(userRepository).save(user);
+        inOrder.verify(imageService).deleteFileIfNotNull("/users/image/old.jpg");
+        verify(cacheInvalidationBus).userChanged(email);
     }
 
     @Test
@@ -184,6 +217,7 @@ class UserServiceImplTest {
 
         verify(userRepository).findByEmail(email);
         verifyNoInteractions(imageService);
+        verifyNoInteractions(cacheInvalidationBus);
         verifyNoMoreInteractions(userRepository);
     }
 }
\ No newline at end of file